@@ -1,5 +1,6 @@
 package com.codemuni;
 
+import com.codemuni.cli.CommandLineRunner;
 import com.codemuni.config.ConfigManager;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
@@ -23,8 +24,6 @@ public class App {
     static {
         System.setProperty("sun.security.pkcs11.disableNativeDialog", "true");
         System.setProperty("file.encoding", "UTF-8");
-        FlatMacDarkLaf.setup();
-        UIManager.put("defaultFont", new Font("SansSerif", Font.PLAIN, 13));
     }
 
     public static Image getAppIcon() {
@@ -32,9 +31,22 @@ public class App {
     }
 
     public static void main(String[] args) {
+        // Sub-commands run headless; set before any AWT class initializes its toolkit
+        boolean command = CommandLineRunner.isCommand(args);
+        if (command) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
         AppInitializer.initialize();
         configureProxyFromConfig();
 
+        // The look and feel is only set up for the desktop UI
+        if (command) {
+            System.exit(new CommandLineRunner().run(args));
+        }
+
+        setupLookAndFeel();
+
         SwingUtilities.invokeLater(() -> {
             if (!isJava8()) {
                 showJavaVersionErrorAndExit();
@@ -77,6 +89,11 @@ public class App {
     }
 
 
+    private static void setupLookAndFeel() {
+        FlatMacDarkLaf.setup();
+        UIManager.put("defaultFont", new Font("SansSerif", Font.PLAIN, 13));
+    }
+
     private static void setupUiDefaults() {
         UIManager.put("Button.arc", 10);
         UIManager.put("Component.arc", 10);
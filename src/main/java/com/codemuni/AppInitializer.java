@@ -34,9 +34,10 @@ public class AppInitializer {
             log.info("Application already initialized.");
         }
 
-        // Register shutdown hook to clear PINs on app exit
+        // Register shutdown hook to log out of tokens and clear PINs on app exit
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            log.info("Application shutting down - clearing cached PINs");
+            log.info("Application shutting down - closing token sessions and clearing cached PINs");
+            PKCS11KeyStoreProvider.closeAllSessions();
             PKCS11KeyStoreProvider.clearAllCachedPins();
         }));
 
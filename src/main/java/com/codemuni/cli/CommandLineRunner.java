@@ -0,0 +1,416 @@
+package com.codemuni.cli;
+
+import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.core.keyStoresProvider.PKCS11KeyStoreProvider;
+import com.codemuni.core.keyStoresProvider.PKCS12KeyStoreProvider;
+import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.core.signer.CustomTSAClientBouncyCastle;
+import com.codemuni.core.signer.Signer;
+import com.codemuni.core.signer.SigningMetrics;
+import com.codemuni.core.signer.TsaHttpTransport;
+import com.codemuni.gui.SmartCardCallbackHandler;
+import com.codemuni.service.BatchSigningService;
+import com.codemuni.service.SignatureVerificationService;
+import com.codemuni.service.SignatureVerificationService.SignatureVerificationResult;
+import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.PdfReaderFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.PdfReader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Console;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Headless entry point used when {@code App} is started with a sub-command.
+ * <p>
+ * Drives {@link Signer}, {@link BatchSigningService} and {@link SignatureVerificationService}
+ * directly and prints a JSON document on standard output. {@code App} switches AWT to headless mode
+ * before anything else is loaded and every secret comes from the options or the console, so it runs
+ * on servers without a display.
+ * <pre>
+ *   sign   --in a.pdf --out b.pdf (--pfx f.p12 [--pfx-password pw] | --pkcs11-lib lib --token-serial s --cert-serial c [--pin pin])
+ *          [--page n --rect llx,lly,urx,ury | --field name] [--reason r] [--location l] [--timestamp] [--ltv]
+ *   batch  --in dir --out dir  (same key and appearance options as sign)
+ *   verify --in a.pdf [--pdf-password pw]
+ * </pre>
+ */
+public class CommandLineRunner {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private static final Log log = LogFactory.getLog(CommandLineRunner.class);
+    private static final List<String> COMMANDS = Arrays.asList("sign", "batch", "verify", "help");
+    private static final List<String> FLAGS = Arrays.asList("timestamp", "ltv", "green-tick");
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * @param args the program arguments
+     * @return true if the first argument names a command-line sub-command
+     */
+    public static boolean isCommand(String[] args) {
+        return args != null && args.length > 0 && COMMANDS.contains(args[0]);
+    }
+
+    /**
+     * Runs the sub-command and prints its JSON result.
+     *
+     * @param args the program arguments, starting with the sub-command
+     * @return process exit code
+     */
+    public int run(String[] args) {
+        String command = args[0];
+        Map<String, String> options;
+        try {
+            options = parseOptions(Arrays.copyOfRange(args, 1, args.length));
+        } catch (IllegalArgumentException e) {
+            return usageError(e.getMessage());
+        }
+
+        try {
+            switch (command) {
+                case "sign":
+                    return sign(options);
+                case "batch":
+                    return batch(options);
+                case "verify":
+                    return verify(options);
+                default:
+                    return usageError(null);
+            }
+        } catch (IllegalArgumentException e) {
+            return usageError(e.getMessage());
+        } catch (Exception e) {
+            log.error("Command '" + command + "' failed", e);
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("command", command);
+            error.put("success", false);
+            error.put("error", Signer.buildDetailedMessage("Command failed", e));
+            print(error);
+            return EXIT_FAILED;
+        }
+    }
+
+    private int sign(Map<String, String> options) throws Exception {
+        File input = requireFile(options, "in");
+        File output = new File(require(options, "out"));
+        AppearanceOptions appearance = buildAppearance(options);
+        KeyStoreProvider provider = createProvider(options);
+
+        long start = System.nanoTime();
+        try {
+            PdfReader reader = openPdfReader(input, options.get("pdf-password"));
+            new Signer().signToFile(reader, provider, "codemuni", AppConstants.APP_NAME, appearance,
+                    appearance.isTimestampEnabled() ? CustomTSAClientBouncyCastle.fromConfig() : null, output);
+        } finally {
+            if (provider instanceof PKCS11KeyStoreProvider) {
+                ((PKCS11KeyStoreProvider) provider).reset();
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("command", "sign");
+        result.put("success", true);
+        result.put("input", input.getAbsolutePath());
+        result.put("output", output.getAbsolutePath());
+        result.put("durationMillis", (System.nanoTime() - start) / 1_000_000L);
+        result.put("phaseMillis", phaseTimingsJson());
+        print(result);
+        return EXIT_OK;
+    }
+
+    private int batch(Map<String, String> options) throws Exception {
+        File inputDir = requireFile(options, "in");
+        File outputDir = new File(require(options, "out"));
+        List<File> inputs = inputDir.isDirectory()
+                ? BatchSigningService.collectPdfFiles(inputDir)
+                : Arrays.asList(inputDir);
+
+        AppearanceOptions appearance = buildAppearance(options);
+        BatchSigningService service = new BatchSigningService(createProvider(options));
+        service.setPdfPassword(options.get("pdf-password"));
+        BatchSigningService.BatchResult batchResult = service.signAll(inputs, outputDir, appearance);
+
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (BatchSigningService.FileResult fileResult : batchResult.getResults()) {
+            Map<String, Object> file = new LinkedHashMap<>();
+            file.put("input", fileResult.getInput().getAbsolutePath());
+            file.put("success", fileResult.isSuccess());
+            if (fileResult.isSuccess()) {
+                file.put("output", fileResult.getOutput().getAbsolutePath());
+            } else {
+                file.put("error", fileResult.getErrorMessage());
+            }
+            file.put("durationMillis", fileResult.getDurationMillis());
+            files.add(file);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("command", "batch");
+        result.put("success", batchResult.getFailed() == 0);
+        result.put("succeeded", batchResult.getSucceeded());
+        result.put("failed", batchResult.getFailed());
+        result.put("elapsedMillis", batchResult.getElapsedMillis());
+        result.put("docsPerSecond", batchResult.getDocsPerSecond());
+        result.put("files", files);
+        // Average per document over the run, including time queued between pipeline stages
+        result.put("phaseMillis", phaseTimingsJson());
+        if (appearance.isTimestampEnabled()) {
+            result.put("tsaLatency", tsaLatencyJson());
+        }
+        print(result);
+        return batchResult.getFailed() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private int verify(Map<String, String> options) {
+        File input = requireFile(options, "in");
+
+        SignatureVerificationService service = new SignatureVerificationService();
+        List<SignatureVerificationResult> results = service.verifySignatures(input, options.get("pdf-password"));
+
+        boolean allValid = !results.isEmpty();
+        List<Map<String, Object>> signatures = new ArrayList<>();
+        for (SignatureVerificationResult result : results) {
+            allValid &= result.getOverallStatus() == SignatureVerificationService.VerificationStatus.VALID;
+            signatures.add(toJson(result));
+        }
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("command", "verify");
+        output.put("file", input.getAbsolutePath());
+        output.put("signatureCount", results.size());
+        output.put("allValid", allValid);
+        output.put("signatures", signatures);
+        print(output);
+        return allValid ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private Map<String, Object> toJson(SignatureVerificationResult result) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("fieldName", result.getFieldName());
+        json.put("status", result.getOverallStatus().name());
+        json.put("statusMessage", result.getStatusMessage());
+        json.put("signerName", result.getSignerName());
+        json.put("signDate", formatDate(result.getSignDate()));
+        json.put("reason", result.getReason());
+        json.put("location", result.getLocation());
+        json.put("revision", result.getRevision());
+        json.put("totalRevisions", result.getTotalRevisions());
+        json.put("coversWholeDocument", result.isCoversWholeDocument());
+        json.put("documentIntact", result.isDocumentIntact());
+        json.put("signatureValid", result.isSignatureValid());
+        json.put("certificateValid", result.isCertificateValid());
+        json.put("certificateTrusted", result.isCertificateTrusted());
+        json.put("certificateRevoked", result.isCertificateRevoked());
+        json.put("revocationStatus", result.getRevocationStatus());
+        json.put("certificateSubject", result.getCertificateSubject());
+        json.put("certificateIssuer", result.getCertificateIssuer());
+        json.put("signatureAlgorithm", result.getSignatureAlgorithm());
+        json.put("timestampValid", result.isTimestampValid());
+        json.put("timestampDate", formatDate(result.getTimestampDate()));
+        json.put("hasLTV", result.hasLTV());
+        json.put("certificationLevel", result.getCertificationLevel().name());
+        json.put("errors", result.getVerificationErrors());
+        json.put("warnings", result.getVerificationWarnings());
+        return json;
+    }
+
+    private Map<String, Object> tsaLatencyJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<String, TsaHttpTransport.LatencyStats> entry : TsaHttpTransport.getLatencyStats().entrySet()) {
+            TsaHttpTransport.LatencyStats stats = entry.getValue();
+            Map<String, Object> tsa = new LinkedHashMap<>();
+            tsa.put("requests", stats.getRequests());
+            tsa.put("failures", stats.getFailures());
+            tsa.put("averageMillis", stats.getAverageMillis());
+            tsa.put("maxMillis", stats.getMaxMillis());
+            json.put(entry.getKey(), tsa);
+        }
+        return json;
+    }
+
+    private Map<String, Object> phaseTimingsJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<SigningMetrics.Phase, SigningMetrics.HistogramSnapshot> entry : SigningMetrics.getSnapshot().entrySet()) {
+            json.put(entry.getKey().getLabel(), entry.getValue().getAverageMillis());
+        }
+        return json;
+    }
+
+    private AppearanceOptions buildAppearance(Map<String, String> options) {
+        AppearanceOptions appearance = new AppearanceOptions();
+        appearance.setReason(options.getOrDefault("reason", ""));
+        appearance.setLocation(options.getOrDefault("location", ""));
+        appearance.setTimestampEnabled(options.containsKey("timestamp"));
+        appearance.setLtvEnabled(options.containsKey("ltv"));
+        appearance.setGreenTickEnabled(options.containsKey("green-tick"));
+
+        String field = options.get("field");
+        if (field != null) {
+            appearance.setExistingFieldName(field);
+            appearance.setUseExistingField(true);
+        } else if (options.containsKey("rect")) {
+            appearance.setPageNumber(parseInt(options.getOrDefault("page", "1"), "page"));
+            appearance.setCoordinates(parseRect(options.get("rect")));
+        }
+
+        // Same watermark as the GUI signing flow; iText decodes it without AWT
+        URL logo = CommandLineRunner.class.getResource("/icons/logo.png");
+        if (logo != null) {
+            try {
+                appearance.setWatermarkImage(Image.getInstance(logo));
+            } catch (Exception e) {
+                log.warn("Unable to load watermark image: " + e.getMessage());
+            }
+        }
+        return appearance;
+    }
+
+    private KeyStoreProvider createProvider(Map<String, String> options) {
+        if (options.containsKey("pfx")) {
+            String password = options.containsKey("pfx-password")
+                    ? options.get("pfx-password")
+                    : readSecret("PFX password: ");
+            PKCS12KeyStoreProvider provider =
+                    new PKCS12KeyStoreProvider(requireFile(options, "pfx").getAbsolutePath(), password);
+            // Loads the key store with the given password; a wrong one fails here instead of prompting
+            provider.loadCertificates();
+            return provider;
+        }
+
+        if (options.containsKey("pkcs11-lib")) {
+            PKCS11KeyStoreProvider provider = new PKCS11KeyStoreProvider(AppConstants.PKCS11_KEY_STORE);
+            provider.setPkcs11LibPath(require(options, "pkcs11-lib"));
+            provider.setTokenSerialNumber(require(options, "token-serial"));
+            provider.setCertificateSerialNumber(require(options, "cert-serial"));
+
+            String pin = options.containsKey("pin") ? options.get("pin") : readSecret("Token PIN: ");
+            // A pre-filled PIN means the handler never opens its dialog
+            SmartCardCallbackHandler pinHandler = new SmartCardCallbackHandler();
+            pinHandler.setCachedPin(pin.toCharArray());
+            try {
+                provider.login(pinHandler);
+            } catch (Exception e) {
+                throw new IllegalStateException(Signer.buildDetailedMessage("Token login failed", e), e);
+            }
+            return provider;
+        }
+
+        throw new IllegalArgumentException("Either --pfx or --pkcs11-lib must be given.");
+    }
+
+    private PdfReader openPdfReader(File file, String password) throws IOException {
+        return PdfReaderFactory.open(file, password);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2);
+            if (FLAGS.contains(name)) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + name);
+            }
+        }
+        return options;
+    }
+
+    private static String require(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return value;
+    }
+
+    private static File requireFile(Map<String, String> options, String name) {
+        File file = new File(require(options, name));
+        if (!file.exists()) {
+            throw new IllegalArgumentException("File not found: " + file.getAbsolutePath());
+        }
+        return file;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for --" + name + ": " + value);
+        }
+    }
+
+    private static int[] parseRect(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("--rect expects llx,lly,urx,ury");
+        }
+        int[] rect = new int[4];
+        for (int i = 0; i < 4; i++) {
+            rect[i] = parseInt(parts[i], "rect");
+        }
+        return rect;
+    }
+
+    private static String readSecret(String prompt) {
+        Console console = System.console();
+        if (console == null) {
+            throw new IllegalArgumentException("No console available to read the secret; pass it as an option.");
+        }
+        char[] secret = console.readPassword(prompt);
+        return secret != null ? new String(secret) : "";
+    }
+
+    private static String formatDate(Date date) {
+        if (date == null) return null;
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return iso.format(date);
+    }
+
+    private int usageError(String message) {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("success", false);
+        if (message != null) usage.put("error", message);
+        usage.put("usage", Arrays.asList(
+                "sign --in <pdf> --out <pdf> <key options> [appearance options]",
+                "batch --in <dir|pdf> --out <dir> <key options> [appearance options]",
+                "verify --in <pdf> [--pdf-password <pw>]",
+                "key options: --pfx <file> [--pfx-password <pw>] | --pkcs11-lib <lib> --token-serial <s> --cert-serial <c> [--pin <pin>]",
+                "appearance options: --page <n> --rect <llx,lly,urx,ury> | --field <name>, --reason <r>, --location <l>, --timestamp, --ltv, --green-tick"
+        ));
+        print(usage);
+        return message == null ? EXIT_OK : EXIT_USAGE;
+    }
+
+    private void print(Map<String, Object> json) {
+        try {
+            System.out.println(mapper.writeValueAsString(json));
+        } catch (IOException e) {
+            log.error("Failed to write JSON output", e);
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class AppConfig {
     @JsonProperty("PROXY")
     public Map<String, String> proxy = new HashMap<>();
 
+    @JsonProperty("SYNC_ON_SAVE")
+    public boolean syncOnSave = true;
+
 
     public Map<String, String> getTimestampServer() {
         return timestampServer;
@@ -65,4 +68,12 @@ public class AppConfig {
     public void setPkcs11(List<String> pkcs11) {
         this.pkcs11 = pkcs11;
     }
+
+    public boolean isSyncOnSave() {
+        return syncOnSave;
+    }
+
+    public void setSyncOnSave(boolean syncOnSave) {
+        this.syncOnSave = syncOnSave;
+    }
 }
@@ -160,9 +160,35 @@ public final class ConfigManager {
         return new HashMap<>(readConfig().timestampServer);
     }
 
+    /**
+     * Additional TSA URLs used for failover, from the comma-separated {@code fallback_urls} entry.
+     */
+    public static List<String> getTimestampFallbackUrls() {
+        String value = readConfig().timestampServer.getOrDefault("fallback_urls", "");
+        List<String> urls = new ArrayList<>();
+        for (String url : value.split(",")) {
+            if (!url.trim().isEmpty()) urls.add(url.trim());
+        }
+        return urls;
+    }
+
+    /**
+     * Latency budget before a second TSA is asked, from the {@code hedge_delay_ms} entry.
+     */
+    public static long getTimestampHedgeDelayMs(long defaultValue) {
+        String value = readConfig().timestampServer.get("hedge_delay_ms");
+        try {
+            return value != null && !value.trim().isEmpty() ? Long.parseLong(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid hedge_delay_ms in config: " + value);
+            return defaultValue;
+        }
+    }
+
     public static boolean setTimestampServer(String url, String username, String password) {
         AppConfig config = readConfig();
-        Map<String, String> ts = new HashMap<>();
+        // Keep failover settings that are not edited in the UI
+        Map<String, String> ts = new HashMap<>(config.timestampServer);
         ts.put("url", url);
         ts.put("username", username);
         ts.put("password", password);
@@ -170,6 +196,24 @@ public final class ConfigManager {
         return writeConfig(config);
     }
 
+    // ──────────────────────────────
+// Saving
+// ──────────────────────────────
+
+    /**
+     * Whether a signed PDF is forced to disk before it is shown, from the {@code SYNC_ON_SAVE} entry
+     * (default true).
+     */
+    public static boolean isSyncOnSave() {
+        return readConfig().syncOnSave;
+    }
+
+    public static boolean setSyncOnSave(boolean syncOnSave) {
+        AppConfig config = readConfig();
+        config.syncOnSave = syncOnSave;
+        return writeConfig(config);
+    }
+
     // ──────────────────────────────
 // Proxy Settings
 // ──────────────────────────────
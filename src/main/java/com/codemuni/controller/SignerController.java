@@ -13,11 +13,14 @@ import com.codemuni.core.keyStoresProvider.WindowsKeyStoreProvider;
 import com.codemuni.core.keyStoresProvider.X509CertificateValidatorImpl;
 import com.codemuni.core.model.KeystoreAndCertificateInfo;
 import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.core.signer.CachingOcspClient;
 import com.codemuni.gui.CertificateListDialog;
 import com.codemuni.gui.SignatureAppearanceDialog;
 import com.codemuni.gui.SmartCardCallbackHandler;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
 import com.codemuni.service.PdfSignerService;
+import com.codemuni.service.SignatureFieldDetectionService.SignatureFieldInfo;
+import com.codemuni.service.TrustStoreManager;
 import com.codemuni.utils.AppConstants;
 import com.itextpdf.text.BadElementException;
 import com.itextpdf.text.Image;
@@ -27,6 +30,8 @@ import org.apache.commons.logging.LogFactory;
 import java.io.File;
 import java.io.IOException;
 import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +41,8 @@ import java.util.stream.Collectors;
 
 public class SignerController {
     private static final Log log = LogFactory.getLog(SignerController.class);
+    // Decoded once; the appearance builder only draws copies of it
+    private static volatile Image watermarkImage;
     private final PKCS11KeyStoreProvider pkcs11KeyStoreProvider;
     private final PdfSignerService signerService;
     private File selectedFile;
@@ -43,6 +50,7 @@ public class SignerController {
     private int pageNumber;
     private int[] coordinates;
     private String existingFieldName; // For signing existing signature fields
+    private List<SignatureFieldInfo> additionalFields; // Further existing fields signed in the same operation
     private List<KeystoreAndCertificateInfo> keystoreAndCertificateInfos;
     private KeystoreAndCertificateInfo keystoreAndCertificateInfo;
     private PKCS12KeyStoreProvider pkcs12KeyStoreProvider;
@@ -91,6 +99,13 @@ public class SignerController {
         return existingFieldName;
     }
 
+    /**
+     * Sets further unsigned fields to sign together with the existing field, in one read/write cycle.
+     */
+    public void setAdditionalFields(List<SignatureFieldInfo> additionalFields) {
+        this.additionalFields = additionalFields;
+    }
+
     /**
      * Starts the signing service by prompting the user to select a certificate and signing the PDF.
      * Execution stops gracefully if the user cancels at any stage.
@@ -118,6 +133,9 @@ public class SignerController {
         }
 
 
+        // Fetch the OCSP response for LTV while the user configures the appearance
+        prefetchOcspResponse(x509Certificate);
+
         SignatureAppearanceDialog appearanceDialog = new SignatureAppearanceDialog(PdfViewerMain.INSTANCE);
         appearanceDialog.setCertificate(x509Certificate);
         appearanceDialog.showAppearanceConfigPrompt();
@@ -126,11 +144,7 @@ public class SignerController {
         if (appearanceOptions == null) return;
 
         // watermark image
-        try {
-            Image watermarkImage = Image.getInstance(Objects.requireNonNull(App.class.getResource("/icons/logo.png")));
-            appearanceOptions.setWatermarkImage( appearanceOptions.isGraphicRendering() ? null : watermarkImage); // if graphic rendering is enabled, no watermark image
-        } catch (BadElementException | IOException ignore) {
-        }
+        appearanceOptions.setWatermarkImage(appearanceOptions.isGraphicRendering() ? null : getWatermarkImage()); // if graphic rendering is enabled, no watermark image
 
         // Check if we're signing an existing field or creating a new one
         boolean hasExistingField = existingFieldName != null && !existingFieldName.trim().isEmpty();
@@ -158,7 +172,33 @@ public class SignerController {
 
         KeyStoreProvider provider = createProvider();
         signerService.setProvider(provider);
-        signerService.launchSigningFlow(appearanceOptions);
+        if (hasExistingField && additionalFields != null && !additionalFields.isEmpty()) {
+            signerService.launchMultiFieldSigningFlow(buildFieldOptions(appearanceOptions));
+        } else {
+            signerService.launchSigningFlow(appearanceOptions);
+        }
+    }
+
+    /**
+     * One appearance per field: the clicked field first, then the additional fields at their own positions.
+     */
+    private List<AppearanceOptions> buildFieldOptions(AppearanceOptions appearanceOptions) {
+        List<AppearanceOptions> fieldOptions = new ArrayList<>();
+        fieldOptions.add(appearanceOptions);
+        for (SignatureFieldInfo field : additionalFields) {
+            AppearanceOptions options = appearanceOptions.copy();
+            options.setExistingFieldName(field.getFieldName());
+            options.setPageNumber(field.getPageNumber());
+            options.setCoordinates(new int[]{
+                    Math.round(field.getLlx()),
+                    Math.round(field.getLly()),
+                    Math.round(field.getUrx()),
+                    Math.round(field.getUry())
+            });
+            fieldOptions.add(options);
+        }
+        log.info("Signing " + fieldOptions.size() + " existing fields in one operation");
+        return fieldOptions;
     }
 
     /**
@@ -215,6 +255,59 @@ public class SignerController {
         }
     }
 
+    /**
+     * Returns the application logo used as signature watermark, decoding it on first use.
+     */
+    private static Image getWatermarkImage() {
+        Image image = watermarkImage;
+        if (image == null) {
+            try {
+                image = Image.getInstance(Objects.requireNonNull(App.class.getResource("/icons/logo.png")));
+                watermarkImage = image;
+            } catch (BadElementException | IOException ignore) {
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Starts a background OCSP request for the selected certificate so LTV signing does not wait on it.
+     * The issuer comes from the PFX chain when available, otherwise from the trust store.
+     */
+    private void prefetchOcspResponse(X509Certificate certificate) {
+        try {
+            X509Certificate issuer = null;
+            if (AppConstants.SOFTHSM.equals(keystoreAndCertificateInfo.getKeystoreName()) && pkcs12KeyStoreProvider != null) {
+                Certificate[] chain = pkcs12KeyStoreProvider.getCertificateChain();
+                if (chain != null && chain.length > 1) issuer = (X509Certificate) chain[1];
+            }
+            if (issuer == null) {
+                issuer = findIssuerInTrustStore(certificate);
+            }
+            CachingOcspClient.prefetch(certificate, issuer);
+        } catch (Exception e) {
+            log.debug("OCSP prefetch skipped: " + e.getMessage());
+        }
+    }
+
+    private X509Certificate findIssuerInTrustStore(X509Certificate certificate) {
+        TrustStoreManager trustStore = TrustStoreManager.getInstance();
+        List<X509Certificate> candidates = new ArrayList<>(trustStore.getIntermediateCertificates());
+        for (TrustAnchor anchor : trustStore.getRootTrustAnchors()) {
+            if (anchor.getTrustedCert() != null) candidates.add(anchor.getTrustedCert());
+        }
+        for (X509Certificate candidate : candidates) {
+            if (!candidate.getSubjectX500Principal().equals(certificate.getIssuerX500Principal())) continue;
+            try {
+                certificate.verify(candidate.getPublicKey());
+                return candidate;
+            } catch (Exception ignore) {
+                // Same name, different key; keep looking
+            }
+        }
+        return null;
+    }
+
     /**
      * Creates appropriate KeyStoreProvider based on selected certificate info.
      */
@@ -33,7 +33,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * PKCS#11 KeyStore provider implementation with persistent session support.
- * PIN is cached for the entire app session to improve UX.
+ * PIN is cached for the entire app session to improve UX, and authenticated sessions are kept in
+ * {@link Pkcs11SessionPool} so consecutive signatures on the same token skip the login entirely.
  */
 public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
 
@@ -66,6 +67,7 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
     private List<String> pkcs11LibPathsToBeLoadPublicKey;
     private volatile SunPKCS11 sunPKCS11Provider;
     private volatile KeyStore keyStore;
+    private volatile Pkcs11SessionPool.Session session;
 
 
     private String certificateSerialNumber; // hex string
@@ -208,11 +210,13 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         PKCS11 pkcs11 = PKCS11.getInstance(libPath, "C_GetFunctionList", null, false);
         CertificateFactory certFactory = CertificateFactory.getInstance("X.509");
 
+        Set<String> presentTokens = new HashSet<>();
         for (long slot : pkcs11.C_GetSlotList(true)) {
             long session = 0L;
             try {
                 CK_TOKEN_INFO tokenInfo = pkcs11.C_GetTokenInfo(slot);
                 String tokenSerial = new String(tokenInfo.serialNumber).trim();
+                presentTokens.add(tokenSerial);
 
                 session = pkcs11.C_OpenSession(slot, PKCS11Constants.CKF_SERIAL_SESSION, null, null);
                 CK_ATTRIBUTE[] template = {new CK_ATTRIBUTE(PKCS11Constants.CKA_CLASS, PKCS11Constants.CKO_CERTIFICATE)};
@@ -240,6 +244,8 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
                 }
             }
         }
+        // Tokens that were removed since their login no longer keep a session open
+        Pkcs11SessionPool.getInstance().retainTokens(libPath, presentTokens);
     }
 
 
@@ -254,16 +260,24 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         Objects.requireNonNull(pkcs11LibPath, "PKCS#11 library path must be set.");
         Objects.requireNonNull(tokenSerialNumber, "Token serial number must be set.");
 
+        Pkcs11SessionPool.Session pooled = Pkcs11SessionPool.getInstance()
+                .acquire(pkcs11LibPath, tokenSerialNumber, PKCS11KeyStoreProvider::isTokenPresent);
+        if (pooled != null) {
+            attach(pooled);
+            return;
+        }
+
         long slot = findSlotByTokenSerial(pkcs11LibPath, tokenSerialNumber);
 
         if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
             Security.addProvider(BC_PROVIDER);
         }
 
+        releaseSession();
         cleanupProvider();
 
         String config = String.format(Locale.ROOT,
-                "name=PKCS11-%d\nlibrary=%s\nslot=%d", slot, pkcs11LibPath, slot);
+                "name=PKCS11-%d-%08x\nlibrary=%s\nslot=%d", slot, pkcs11LibPath.hashCode(), pkcs11LibPath, slot);
 
         sunPKCS11Provider = new SunPKCS11(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
         Security.addProvider(sunPKCS11Provider);
@@ -279,6 +293,8 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
             KeyStore.Builder builder = KeyStore.Builder.newInstance(
                     "PKCS11", null, new KeyStore.CallbackHandlerProtection(pinHandler));
             this.keyStore = builder.getKeyStore();
+            this.session = Pkcs11SessionPool.getInstance()
+                    .register(pkcs11LibPath, tokenSerialNumber, slot, sunPKCS11Provider, keyStore);
 
             // Cache the PIN on successful login (only if it was entered, not from cache)
             if (cachedPin == null && pinHandler.getEnteredPin() != null) {
@@ -286,12 +302,43 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
                 LOG.info("PIN cached for token: " + tokenSerialNumber);
             }
 
-            LOG.info("Login successful — session will remain active until logout() or reset().");
+            LOG.info("Login successful — session pooled until logout(), token removal or idle timeout.");
         } catch (KeyStoreException e) {
             handleLoginException(e);
         }
     }
 
+    private void attach(Pkcs11SessionPool.Session pooled) {
+        this.session = pooled;
+        this.sunPKCS11Provider = (SunPKCS11) pooled.provider;
+        this.keyStore = pooled.keyStore;
+    }
+
+    /**
+     * Cheap presence check of a pooled session's token: the slot must still hold the same token.
+     */
+    private static boolean isTokenPresent(Pkcs11SessionPool.Session pooled) {
+        try {
+            PKCS11 pkcs11 = PKCS11.getInstance(pooled.libPath, "C_GetFunctionList", null, false);
+            CK_TOKEN_INFO info = pkcs11.C_GetTokenInfo(pooled.slot);
+            return new String(info.serialNumber).trim().equalsIgnoreCase(pooled.tokenSerial.trim());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean isTokenGone(Throwable t) {
+        PKCS11Exception ex = findPkcs11Cause(t);
+        if (ex == null) return false;
+        long code = ex.getErrorCode();
+        return code == PKCS11Constants.CKR_DEVICE_REMOVED
+                || code == PKCS11Constants.CKR_TOKEN_NOT_PRESENT
+                || code == PKCS11Constants.CKR_SESSION_HANDLE_INVALID
+                || code == PKCS11Constants.CKR_SESSION_CLOSED
+                || code == PKCS11Constants.CKR_USER_NOT_LOGGED_IN
+                || code == PKCS11Constants.CKR_DEVICE_ERROR;
+    }
+
     private void handleLoginException(KeyStoreException e)
             throws IncorrectPINException, UserCancelledPasswordEntryException, KeyStoreException {
 
@@ -318,6 +365,17 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         throw e; // Unhandled — rethrow
     }
 
+    /**
+     * Hands a session this provider still holds back to the pool; its provider stays installed
+     * for the other users of the session.
+     */
+    private void releaseSession() {
+        if (session != null) {
+            Pkcs11SessionPool.getInstance().release(session);
+            detach();
+        }
+    }
+
     private void cleanupProvider() {
         if (sunPKCS11Provider != null) {
             try {
@@ -374,26 +432,63 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
      * Explicit logout — closes session and clears sensitive data.
      */
     public synchronized void logout() {
-        try {
-            if (sunPKCS11Provider != null) {
-                sunPKCS11Provider.logout();
-                Security.removeProvider(sunPKCS11Provider.getName());
+        if (session != null) {
+            Pkcs11SessionPool.getInstance().invalidate(session);
+        } else {
+            try {
+                if (sunPKCS11Provider != null) {
+                    sunPKCS11Provider.logout();
+                    Security.removeProvider(sunPKCS11Provider.getName());
+                }
+            } catch (Exception ignored) {
             }
-        } catch (Exception ignored) {
         }
-        keyStore = null;
-        sunPKCS11Provider = null;
-        serialToAlias.clear();
+        detach();
         LOG.info("Logged out from token — session closed.");
     }
 
+    /**
+     * Detaches this provider from the current token. The authenticated session stays in the pool,
+     * so the next {@link #login} for the same token reuses it without a PIN prompt or provider setup.
+     */
     public synchronized void reset() {
-        logout();
+        Pkcs11SessionPool.getInstance().release(session);
+        detach();
         certificateSerialNumber = null;
         tokenSerialNumber = null;
         pkcs11LibPath = null;
         // Note: PIN cache is NOT cleared here - it persists for the session
-        LOG.info("PKCS11 provider reset - PIN cache retained for session");
+        LOG.info("PKCS11 provider reset - session and PIN cache retained");
+    }
+
+    /**
+     * Closes the pooled session if {@code error} shows that the token was removed or the session
+     * was lost, so the next signature performs a fresh login.
+     *
+     * @return true if the session was invalidated
+     */
+    public synchronized boolean invalidateOnTokenError(Throwable error) {
+        if (session == null || !isTokenGone(error)) {
+            return false;
+        }
+        LOG.warn("Token session lost (" + rootCause(error).getMessage() + ") — invalidating pooled session.");
+        Pkcs11SessionPool.getInstance().invalidate(session);
+        detach();
+        return true;
+    }
+
+    /**
+     * Closes all pooled token sessions.
+     */
+    public static void closeAllSessions() {
+        Pkcs11SessionPool.getInstance().invalidateAll();
+    }
+
+    private void detach() {
+        session = null;
+        keyStore = null;
+        sunPKCS11Provider = null;
+        serialToAlias.clear();
     }
 
     /**
@@ -457,11 +552,21 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
             throw new KeyStoreInitializationException("KeyStore not loaded. Call login() first.");
         }
         String alias = getAliasForCertificateSerial();
+        Pkcs11SessionPool.Session current = session;
+        if (current != null) {
+            PrivateKey cached = current.privateKeys.get(alias);
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
             PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, null);
             if (privateKey == null) {
                 throw new PrivateKeyAccessException("No private key for alias: " + alias);
             }
+            if (current != null) {
+                current.privateKeys.put(alias, privateKey);
+            }
             return privateKey;
         } catch (UnrecoverableKeyException e) {
             throw new PrivateKeyAccessException("Unable to access private key: " + e.getMessage(), e);
@@ -0,0 +1,200 @@
+package com.codemuni.core.keyStoresProvider;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.security.AuthProvider;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Pool of authenticated PKCS#11 sessions, keyed by library path and token serial.
+ * <p>
+ * Logging in to a token means creating a SunPKCS11 provider, locating the slot and building the
+ * key store, which costs one to two seconds on USB tokens. Sessions are therefore kept after a
+ * signature and handed to the next login for the same token, together with the private-key handles
+ * already looked up. A session is closed when it has been idle for {@link #IDLE_TIMEOUT_MS}, when
+ * the token is no longer present, or when it is invalidated explicitly (logout, token errors,
+ * application shutdown).
+ */
+final class Pkcs11SessionPool {
+
+    private static final Log LOG = LogFactory.getLog(Pkcs11SessionPool.class);
+    private static final Pkcs11SessionPool INSTANCE = new Pkcs11SessionPool();
+
+    static final long IDLE_TIMEOUT_MS = 10 * 60 * 1000L;
+    private static final long EVICTION_INTERVAL_MS = 60 * 1000L;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pkcs11-session-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Pkcs11SessionPool() {
+        evictor.scheduleWithFixedDelay(this::evictIdle, EVICTION_INTERVAL_MS, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    static Pkcs11SessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pooled session for the token and marks it as in use.
+     *
+     * @param stillValid checks that the token behind the session is still present
+     * @return the session, or null if there is none (or it was no longer valid)
+     */
+    Session acquire(String libPath, String tokenSerial, Predicate<Session> stillValid) {
+        String key = key(libPath, tokenSerial);
+        Session session = sessions.get(key);
+        if (session == null) {
+            return null;
+        }
+        if (!stillValid.test(session)) {
+            LOG.info("Token " + tokenSerial + " is no longer available — discarding pooled session.");
+            invalidate(session);
+            return null;
+        }
+        session.acquire();
+        LOG.info("Reusing pooled PKCS#11 session for token: " + tokenSerial);
+        return session;
+    }
+
+    /**
+     * Adds a freshly authenticated session to the pool and marks it as in use.
+     */
+    Session register(String libPath, String tokenSerial, long slot, Provider provider, KeyStore keyStore) {
+        Session session = new Session(key(libPath, tokenSerial), libPath, tokenSerial, slot, provider, keyStore);
+        session.acquire();
+        Session previous = sessions.put(session.key, session);
+        if (previous != null && previous.provider != provider) {
+            close(previous);
+        }
+        return session;
+    }
+
+    /**
+     * Returns a session to the pool; its idle time starts now.
+     */
+    void release(Session session) {
+        if (session != null) {
+            session.release();
+        }
+    }
+
+    /**
+     * Closes the session and removes it from the pool.
+     */
+    void invalidate(Session session) {
+        if (session != null && sessions.remove(session.key, session)) {
+            close(session);
+        }
+    }
+
+    void invalidateAll() {
+        List<Session> all = new ArrayList<>(sessions.values());
+        for (Session session : all) {
+            invalidate(session);
+        }
+    }
+
+    /**
+     * Closes the sessions of {@code libPath} whose token is not among {@code presentSerials}.
+     */
+    void retainTokens(String libPath, Set<String> presentSerials) {
+        Set<String> present = new HashSet<>();
+        for (String serial : presentSerials) {
+            present.add(key(libPath, serial));
+        }
+        for (Session session : sessions.values()) {
+            if (session.libPath.equals(libPath) && !present.contains(session.key)) {
+                LOG.info("Token " + session.tokenSerial + " was removed — closing its pooled session.");
+                invalidate(session);
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            if (session.isIdleSince(now - IDLE_TIMEOUT_MS)) {
+                LOG.info("Closing idle PKCS#11 session for token: " + session.tokenSerial);
+                invalidate(session);
+            }
+        }
+    }
+
+    private static void close(Session session) {
+        try {
+            if (session.provider instanceof AuthProvider) {
+                ((AuthProvider) session.provider).logout();
+            }
+        } catch (Exception e) {
+            LOG.debug("PKCS#11 logout failed: " + e.getMessage());
+        }
+        try {
+            Security.removeProvider(session.provider.getName());
+        } catch (Exception e) {
+            LOG.warn("Failed to remove PKCS#11 provider: " + e.getMessage(), e);
+        }
+        session.privateKeys.clear();
+    }
+
+    private static String key(String libPath, String tokenSerial) {
+        return libPath + "|" + tokenSerial.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * An authenticated token session and the private keys already resolved from it.
+     */
+    static final class Session {
+        private final String key;
+        final String libPath;
+        final String tokenSerial;
+        final long slot;
+        final Provider provider;
+        final KeyStore keyStore;
+        final Map<String, PrivateKey> privateKeys = new ConcurrentHashMap<>();
+
+        private int users;
+        private long lastUsed = System.currentTimeMillis();
+
+        private Session(String key, String libPath, String tokenSerial, long slot, Provider provider, KeyStore keyStore) {
+            this.key = key;
+            this.libPath = libPath;
+            this.tokenSerial = tokenSerial;
+            this.slot = slot;
+            this.provider = provider;
+            this.keyStore = keyStore;
+        }
+
+        private synchronized void acquire() {
+            users++;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private synchronized void release() {
+            users = Math.max(0, users - 1);
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private synchronized boolean isIdleSince(long threshold) {
+            return users == 0 && lastUsed < threshold;
+        }
+    }
+}
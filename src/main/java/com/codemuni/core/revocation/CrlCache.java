@@ -0,0 +1,394 @@
+package com.codemuni.core.revocation;
+
+import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.FileUtils;
+import com.codemuni.utils.HostCircuitBreaker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent CRL cache shared by signing (LTV embedding) and signature verification.
+ * <p>
+ * Each CRL is stored under {@code ~/.eMark/crl-cache} together with its {@code nextUpdate},
+ * {@code ETag} and {@code Last-Modified} values. A cached CRL is served without network access until
+ * its {@code nextUpdate}; after that it is revalidated with a conditional GET, so an unchanged CRL is
+ * never downloaded twice. When the CRL server is unreachable the last known CRL is returned, and the
+ * server is not contacted again while its {@link HostCircuitBreaker} circuit is open.
+ * For revocation lookups each CRL is also kept as a {@link CrlIndex} of its revoked serial numbers.
+ */
+public class CrlCache {
+
+    private static final Log log = LogFactory.getLog(CrlCache.class);
+    private static final CrlCache INSTANCE = new CrlCache(AppConstants.CONFIG_DIR_PATH.resolve("crl-cache"));
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+    // Minimum time between revalidations of a CRL that is past (or lacks) its nextUpdate
+    private static final long MIN_RECHECK_INTERVAL_MS = 5 * 60 * 1000L;
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_NEXT_UPDATE = "nextUpdate";
+    private static final String KEY_CHECKED_AT = "checkedAt";
+
+    private final Path cacheDir;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    CrlCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public static CrlCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the DER-encoded CRL published at {@code url}.
+     *
+     * @param url the CRL distribution point
+     * @return the CRL bytes, or null if no CRL could be obtained
+     */
+    public byte[] getEncoded(String url) {
+        Entry entry = resolve(url);
+        return entry != null ? entry.getBytes() : null;
+    }
+
+    /**
+     * Returns the parsed CRL published at {@code url}.
+     *
+     * @param url the CRL distribution point
+     * @return the CRL, or null if no CRL could be obtained
+     */
+    public X509CRL getCrl(String url) {
+        Entry entry = resolve(url);
+        return entry != null ? entry.getCrl() : null;
+    }
+
+    /**
+     * Returns the index of revoked serial numbers of the CRL published at {@code url}. The index is
+     * built once per CRL version, persisted next to it and reloaded from disk afterwards, so the CRL
+     * itself is not parsed again until it changes.
+     *
+     * The CRL may be past its {@link CrlIndex#getNextUpdate() nextUpdate} when the server could not
+     * be reached; callers decide whether such a CRL is still good enough.
+     *
+     * @param url       the CRL distribution point
+     * @param issuerKey the CRL issuer's key used to verify the CRL signature
+     * @return the index, or null if no CRL verifying with {@code issuerKey} could be obtained
+     */
+    public CrlIndex getIndex(String url, PublicKey issuerKey) {
+        if (issuerKey == null) return null;
+        Entry entry = resolve(url);
+        return entry != null ? entry.getIndex(issuerKey) : null;
+    }
+
+    private Entry resolve(String url) {
+        if (url == null || url.trim().isEmpty()) return null;
+
+        Entry entry = entries.computeIfAbsent(url, this::loadEntry);
+        synchronized (entry) {
+            if (!entry.isFresh()) {
+                refresh(entry);
+            }
+            return entry.hasData() ? entry : null;
+        }
+    }
+
+    /**
+     * Conditional GET against the distribution point; keeps the cached copy on 304 or on failure.
+     */
+    private void refresh(Entry entry) {
+        HostCircuitBreaker breaker = HostCircuitBreaker.getInstance();
+        if (!breaker.allowRequest(entry.url)) {
+            log.debug("CRL server unreachable, skipping refresh: " + entry.url
+                    + (entry.hasData() ? " - using cached copy" : ""));
+            return;
+        }
+
+        HttpURLConnection con = null;
+        boolean answered = false;
+        try {
+            con = (HttpURLConnection) new URL(entry.url).openConnection();
+            con.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            con.setReadTimeout(READ_TIMEOUT_MS);
+            if (entry.hasData()) {
+                if (entry.etag != null) con.setRequestProperty("If-None-Match", entry.etag);
+                if (entry.lastModified != null) con.setRequestProperty("If-Modified-Since", entry.lastModified);
+            }
+
+            int code = con.getResponseCode();
+            answered = true;
+            breaker.recordSuccess(entry.url);
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && entry.hasData()) {
+                log.info("CRL not modified: " + entry.url);
+                entry.checkedAt = System.currentTimeMillis();
+                saveMetadata(entry);
+                return;
+            }
+            if (code / 100 != 2) {
+                throw new IOException("HTTP " + code);
+            }
+
+            byte[] bytes;
+            try (InputStream in = con.getInputStream()) {
+                bytes = readFully(in);
+            }
+            X509CRL crl = parse(bytes);
+
+            writeAtomically(dataFile(entry.url), bytes);
+            Files.deleteIfExists(indexFile(entry.url));
+            entry.update(bytes, crl, con.getHeaderField("ETag"), con.getHeaderField("Last-Modified"));
+            saveMetadata(entry);
+            log.info("CRL downloaded: " + entry.url + " (" + bytes.length + " bytes, next update "
+                    + crl.getNextUpdate() + ")");
+        } catch (IOException | CRLException | CertificateException e) {
+            // Avoid hammering an unreachable server; serve the stale copy if there is one
+            entry.checkedAt = System.currentTimeMillis();
+            if (!answered && e instanceof IOException) {
+                breaker.recordFailure(entry.url);
+            }
+            log.warn("CRL refresh failed for " + entry.url + ": " + e.getMessage()
+                    + (entry.hasData() ? " - using cached copy" : ""));
+        } finally {
+            if (con != null) con.disconnect();
+        }
+    }
+
+    private Entry loadEntry(String url) {
+        Entry entry = new Entry(url);
+        Path metaFile = metadataFile(url);
+        if (!Files.isRegularFile(metaFile) || !Files.isRegularFile(dataFile(url))) {
+            return entry;
+        }
+
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            meta.load(in);
+            entry.etag = meta.getProperty(KEY_ETAG);
+            entry.lastModified = meta.getProperty(KEY_LAST_MODIFIED);
+            entry.nextUpdate = Long.parseLong(meta.getProperty(KEY_NEXT_UPDATE, "0"));
+            entry.checkedAt = Long.parseLong(meta.getProperty(KEY_CHECKED_AT, "0"));
+            entry.persisted = true;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Ignoring unreadable CRL cache metadata: " + metaFile, e);
+        }
+        return entry;
+    }
+
+    private void saveMetadata(Entry entry) {
+        Properties meta = new Properties();
+        meta.setProperty(KEY_URL, entry.url);
+        if (entry.etag != null) meta.setProperty(KEY_ETAG, entry.etag);
+        if (entry.lastModified != null) meta.setProperty(KEY_LAST_MODIFIED, entry.lastModified);
+        meta.setProperty(KEY_NEXT_UPDATE, Long.toString(entry.nextUpdate));
+        meta.setProperty(KEY_CHECKED_AT, Long.toString(entry.checkedAt));
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            meta.store(out, null);
+            writeAtomically(metadataFile(entry.url), out.toByteArray());
+        } catch (IOException e) {
+            log.warn("Unable to persist CRL cache metadata for " + entry.url, e);
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] bytes) throws IOException {
+        FileUtils.ensureDirectory(cacheDir.toFile());
+        Path temp = Files.createTempFile(cacheDir, ".crl-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(bytes);
+            }
+            FileUtils.moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path dataFile(String url) {
+        return cacheDir.resolve(fileKey(url) + ".crl");
+    }
+
+    private Path indexFile(String url) {
+        return cacheDir.resolve(fileKey(url) + ".idx");
+    }
+
+    private Path metadataFile(String url) {
+        return cacheDir.resolve(fileKey(url) + ".properties");
+    }
+
+    private static String fileKey(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static X509CRL parse(byte[] bytes) throws CertificateException, CRLException {
+        return (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Cached state of one distribution point. The CRL itself is held softly and re-read from disk
+     * when the memory has been reclaimed, so large CRLs do not pin the heap.
+     */
+    private class Entry {
+        final String url;
+        String etag;
+        String lastModified;
+        long nextUpdate;
+        long checkedAt;
+        boolean persisted;
+        private SoftReference<byte[]> bytesRef = new SoftReference<>(null);
+        private SoftReference<X509CRL> crlRef = new SoftReference<>(null);
+        private CrlIndex index;
+
+        Entry(String url) {
+            this.url = url;
+        }
+
+        boolean hasData() {
+            return bytesRef.get() != null || persisted;
+        }
+
+        boolean isFresh() {
+            if (!hasData()) return false;
+            long now = System.currentTimeMillis();
+            return now < nextUpdate || now < checkedAt + MIN_RECHECK_INTERVAL_MS;
+        }
+
+        void update(byte[] bytes, X509CRL crl, String etag, String lastModified) {
+            this.bytesRef = new SoftReference<>(bytes);
+            this.crlRef = new SoftReference<>(crl);
+            this.index = null;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.nextUpdate = crl.getNextUpdate() != null ? crl.getNextUpdate().getTime() : 0L;
+            this.checkedAt = System.currentTimeMillis();
+            this.persisted = true;
+        }
+
+        synchronized byte[] getBytes() {
+            byte[] bytes = bytesRef.get();
+            if (bytes == null && persisted) {
+                try {
+                    bytes = Files.readAllBytes(dataFile(url));
+                    bytesRef = new SoftReference<>(bytes);
+                } catch (IOException e) {
+                    log.warn("Unable to read cached CRL for " + url, e);
+                    persisted = false;
+                }
+            }
+            return bytes;
+        }
+
+        synchronized CrlIndex getIndex(PublicKey issuerKey) {
+            if (index == null) {
+                index = loadIndex();
+            }
+            if (index != null && index.isVerifiedWith(issuerKey)) {
+                return index;
+            }
+
+            byte[] bytes = getBytes();
+            if (bytes == null) return null;
+            try {
+                long start = System.currentTimeMillis();
+                index = CrlIndex.build(bytes, issuerKey);
+                log.info("Indexed CRL " + url + ": " + index.size() + " revoked serial(s) in "
+                        + (System.currentTimeMillis() - start) + "ms");
+            } catch (IOException | GeneralSecurityException e) {
+                log.warn("Unable to index CRL for " + url + ": " + e.getMessage());
+                index = null;
+                return null;
+            }
+
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                index.writeTo(out);
+                writeAtomically(indexFile(url), out.toByteArray());
+            } catch (IOException e) {
+                log.warn("Unable to persist CRL index for " + url, e);
+            }
+            return index;
+        }
+
+        /**
+         * Reads the persisted index, provided it was built from the cached CRL (a crash between
+         * writing the CRL and its index, or an edited file, leaves them out of step).
+         */
+        private CrlIndex loadIndex() {
+            Path file = indexFile(url);
+            if (!persisted || !Files.isRegularFile(file)) return null;
+            CrlIndex loaded;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                loaded = CrlIndex.readFrom(in);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable CRL index for " + url + ": " + e.getMessage());
+                return null;
+            }
+            byte[] bytes = getBytes();
+            if (bytes == null || !loaded.isIndexOf(bytes)) {
+                log.info("CRL index for " + url + " does not match the cached CRL, rebuilding");
+                return null;
+            }
+            return loaded;
+        }
+
+        synchronized X509CRL getCrl() {
+            X509CRL crl = crlRef.get();
+            if (crl == null) {
+                byte[] bytes = getBytes();
+                if (bytes == null) return null;
+                try {
+                    crl = parse(bytes);
+                    crlRef = new SoftReference<>(crl);
+                } catch (CertificateException | CRLException e) {
+                    log.warn("Cached CRL for " + url + " is corrupt", e);
+                    return null;
+                }
+            }
+            return crl;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.codemuni.core.revocation;
+
+import org.bouncycastle.asn1.ASN1Null;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Compact, searchable view of the revoked serial numbers of one CRL.
+ * <p>
+ * The CRL is read in a single pass over its DER encoding without materialising an
+ * {@code X509CRLEntry} per revoked certificate. Serial numbers are kept in one byte array sorted
+ * by numeric value, with parallel offset and revocation-time arrays, so a multi-megabyte CRL costs a
+ * few bytes per entry and a lookup is a binary search. Indexes are persisted next to the CRL by
+ * {@link CrlCache} and reloaded without parsing the CRL again.
+ */
+public final class CrlIndex {
+
+    private static final int MAGIC = 0x43524c49; // "CRLI"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int TAG_INTEGER = 0x02;
+    private static final int TAG_BIT_STRING = 0x03;
+    private static final int TAG_SEQUENCE = 0x30;
+    private static final int TAG_UTC_TIME = 0x17;
+    private static final int TAG_GENERALIZED_TIME = 0x18;
+
+    private final X500Principal issuer;
+    private final long thisUpdate;
+    private final long nextUpdate;
+    // Fingerprint of the issuer key that verified the CRL signature (empty if not verified)
+    private final byte[] verifiedKeyHash;
+    // SHA-256 of the CRL the index was built from, to detect an index left over from another CRL
+    private final byte[] crlHash;
+    private final byte[] serials;
+    private final int[] offsets;      // offsets[i]..offsets[i + 1] delimit serial i
+    private final long[] revocationTimes;
+
+    private CrlIndex(X500Principal issuer, long thisUpdate, long nextUpdate, byte[] verifiedKeyHash, byte[] crlHash,
+                     byte[] serials, int[] offsets, long[] revocationTimes) {
+        this.issuer = issuer;
+        this.thisUpdate = thisUpdate;
+        this.nextUpdate = nextUpdate;
+        this.verifiedKeyHash = verifiedKeyHash;
+        this.crlHash = crlHash;
+        this.serials = serials;
+        this.offsets = offsets;
+        this.revocationTimes = revocationTimes;
+    }
+
+    /**
+     * Builds the index of a DER-encoded CRL.
+     *
+     * @param der       the CRL
+     * @param issuerKey the CRL issuer's public key; when given, the CRL signature is verified first
+     * @throws GeneralSecurityException if the signature does not verify
+     * @throws IOException              if the CRL is malformed
+     */
+    public static CrlIndex build(byte[] der, PublicKey issuerKey) throws GeneralSecurityException, IOException {
+        DerReader crl = new DerReader(der, 0, der.length).enter(TAG_SEQUENCE);
+
+        int tbsStart = crl.pos;
+        DerReader tbs = crl.enter(TAG_SEQUENCE);
+        int tbsEnd = crl.pos;
+        byte[] algorithm = crl.raw(TAG_SEQUENCE);
+        byte[] signature = crl.content(TAG_BIT_STRING);
+
+        if (issuerKey != null) {
+            verifySignature(der, tbsStart, tbsEnd, algorithm, signature, issuerKey);
+        }
+
+        if (tbs.peek() == TAG_INTEGER) {
+            tbs.skip(); // version
+        }
+        tbs.skip(); // signature algorithm
+        X500Principal issuer = new X500Principal(tbs.raw(TAG_SEQUENCE));
+        long thisUpdate = tbs.time();
+        long nextUpdate = tbs.hasMore() && isTime(tbs.peek()) ? tbs.time() : 0L;
+
+        int count = 0;
+        byte[] serialBytes = new byte[0];
+        int[] entryOffsets = new int[]{0};
+        long[] times = new long[0];
+
+        if (tbs.hasMore() && tbs.peek() == TAG_SEQUENCE) {
+            DerReader revoked = tbs.enter(TAG_SEQUENCE);
+            int capacity = 64;
+            serialBytes = new byte[capacity * 16];
+            entryOffsets = new int[capacity + 1];
+            times = new long[capacity];
+
+            while (revoked.hasMore()) {
+                DerReader entry = revoked.enter(TAG_SEQUENCE);
+                int start = entry.contentStart(TAG_INTEGER);
+                int length = entry.lastLength;
+                // Drop the sign byte so equal serials have equal encodings
+                while (length > 1 && entry.data[start] == 0) {
+                    start++;
+                    length--;
+                }
+                long time = entry.time();
+
+                if (count == capacity) {
+                    capacity *= 2;
+                    entryOffsets = Arrays.copyOf(entryOffsets, capacity + 1);
+                    times = Arrays.copyOf(times, capacity);
+                }
+                int end = entryOffsets[count] + length;
+                if (end > serialBytes.length) {
+                    serialBytes = Arrays.copyOf(serialBytes, Math.max(end, serialBytes.length * 2));
+                }
+                System.arraycopy(entry.data, start, serialBytes, entryOffsets[count], length);
+                entryOffsets[count + 1] = end;
+                times[count] = time;
+                count++;
+            }
+        }
+
+        return sorted(issuer, thisUpdate, nextUpdate, issuerKey != null ? keyHash(issuerKey) : new byte[0],
+                sha256(der), serialBytes, entryOffsets, times, count);
+    }
+
+    /**
+     * @return the revocation time of {@code serial}, or null if it is not on this CRL
+     */
+    public Date getRevocationTime(BigInteger serial) {
+        int i = find(serial);
+        return i >= 0 ? new Date(revocationTimes[i]) : null;
+    }
+
+    public boolean isRevoked(BigInteger serial) {
+        return find(serial) >= 0;
+    }
+
+    public X500Principal getIssuer() {
+        return issuer;
+    }
+
+    public Date getThisUpdate() {
+        return new Date(thisUpdate);
+    }
+
+    /**
+     * @return the CRL's nextUpdate, or null if it has none
+     */
+    public Date getNextUpdate() {
+        return nextUpdate > 0 ? new Date(nextUpdate) : null;
+    }
+
+    public int size() {
+        return revocationTimes.length;
+    }
+
+    /**
+     * @return true if the CRL signature was verified with {@code issuerKey} when the index was built;
+     * false for a null key
+     */
+    public boolean isVerifiedWith(PublicKey issuerKey) {
+        return issuerKey != null && verifiedKeyHash.length > 0 && Arrays.equals(verifiedKeyHash, keyHash(issuerKey));
+    }
+
+    /**
+     * @return true if this index was built from the DER-encoded CRL {@code der}
+     */
+    public boolean isIndexOf(byte[] der) {
+        return MessageDigest.isEqual(crlHash, sha256(der));
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeBytes(data, issuer.getEncoded());
+        data.writeLong(thisUpdate);
+        data.writeLong(nextUpdate);
+        writeBytes(data, verifiedKeyHash);
+        writeBytes(data, crlHash);
+        writeBytes(data, serials);
+        data.writeInt(revocationTimes.length);
+        for (int i = 0; i < revocationTimes.length; i++) {
+            data.writeInt(offsets[i + 1]);
+            data.writeLong(revocationTimes[i]);
+        }
+        data.flush();
+    }
+
+    public static CrlIndex readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a CRL index");
+        }
+        X500Principal issuer = new X500Principal(readBytes(data));
+        long thisUpdate = data.readLong();
+        long nextUpdate = data.readLong();
+        byte[] keyHash = readBytes(data);
+        byte[] crlHash = readBytes(data);
+        byte[] serials = readBytes(data);
+        int count = data.readInt();
+        int[] offsets = new int[count + 1];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = data.readInt();
+            times[i] = data.readLong();
+        }
+        return new CrlIndex(issuer, thisUpdate, nextUpdate, keyHash, crlHash, serials, offsets, times);
+    }
+
+    private int find(BigInteger serial) {
+        byte[] key = serial.toByteArray();
+        int keyStart = 0;
+        while (key.length - keyStart > 1 && key[keyStart] == 0) {
+            keyStart++;
+        }
+
+        int low = 0;
+        int high = revocationTimes.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(serials, offsets[mid], offsets[mid + 1], key, keyStart, key.length);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Numeric order of minimal big-endian encodings: shorter first, then unsigned byte order.
+     */
+    private static int compare(byte[] a, int aStart, int aEnd, byte[] b, int bStart, int bEnd) {
+        int lengthDiff = (aEnd - aStart) - (bEnd - bStart);
+        if (lengthDiff != 0) {
+            return lengthDiff;
+        }
+        for (int i = aStart, j = bStart; i < aEnd; i++, j++) {
+            int diff = (a[i] & 0xff) - (b[j] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    private static CrlIndex sorted(X500Principal issuer, long thisUpdate, long nextUpdate, byte[] keyHash,
+                                   byte[] crlHash, byte[] serialBytes, int[] entryOffsets, long[] times, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> compare(serialBytes, entryOffsets[x], entryOffsets[x + 1],
+                serialBytes, entryOffsets[y], entryOffsets[y + 1]));
+
+        byte[] serials = new byte[entryOffsets[count]];
+        int[] offsets = new int[count + 1];
+        long[] revocationTimes = new long[count];
+        for (int i = 0; i < count; i++) {
+            int source = order[i];
+            int length = entryOffsets[source + 1] - entryOffsets[source];
+            System.arraycopy(serialBytes, entryOffsets[source], serials, offsets[i], length);
+            offsets[i + 1] = offsets[i] + length;
+            revocationTimes[i] = times[source];
+        }
+        return new CrlIndex(issuer, thisUpdate, nextUpdate, keyHash, crlHash, serials, offsets, revocationTimes);
+    }
+
+    private static void verifySignature(byte[] der, int tbsStart, int tbsEnd, byte[] algorithm, byte[] signatureBits,
+                                        PublicKey issuerKey) throws GeneralSecurityException, IOException {
+        AlgorithmIdentifier algId = AlgorithmIdentifier.getInstance(ASN1Primitive.fromByteArray(algorithm));
+        Signature verifier;
+        try {
+            // Providers register signature algorithms under their OIDs; parameterised ones (PSS) are not handled here
+            if (algId.getParameters() != null && !(algId.getParameters().toASN1Primitive() instanceof ASN1Null)) {
+                throw new GeneralSecurityException("Parameterised signature algorithm");
+            }
+            verifier = Signature.getInstance(algId.getAlgorithm().getId());
+        } catch (GeneralSecurityException e) {
+            // Fall back to the platform CRL implementation for anything unusual
+            X509CRL crl = (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(der));
+            crl.verify(issuerKey);
+            return;
+        }
+
+        verifier.initVerify(issuerKey);
+        verifier.update(der, tbsStart, tbsEnd - tbsStart);
+        // First content byte of the BIT STRING is the number of unused bits (always 0 here)
+        if (!verifier.verify(signatureBits, 1, signatureBits.length - 1)) {
+            throw new SignatureException("CRL signature does not verify");
+        }
+    }
+
+    private static byte[] keyHash(PublicKey key) {
+        return sha256(key.getEncoded());
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isTime(int tag) {
+        return tag == TAG_UTC_TIME || tag == TAG_GENERALIZED_TIME;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Corrupt CRL index");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Minimal DER cursor over a region of a byte array.
+     */
+    private static final class DerReader {
+        final byte[] data;
+        int pos;
+        final int end;
+        int lastLength;
+
+        DerReader(byte[] data, int pos, int end) {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        boolean hasMore() {
+            return pos < end;
+        }
+
+        int peek() throws IOException {
+            if (pos >= end) throw new IOException("Unexpected end of CRL");
+            return data[pos] & 0xff;
+        }
+
+        /**
+         * Reads the header of the next element and returns the start of its content.
+         */
+        int contentStart(int expectedTag) throws IOException {
+            int tag = peek();
+            if (expectedTag >= 0 && tag != expectedTag) {
+                throw new IOException("Unexpected DER tag 0x" + Integer.toHexString(tag) + " in CRL");
+            }
+            pos++;
+            if (pos >= end) throw new IOException("Truncated CRL");
+            int length = data[pos++] & 0xff;
+            if (length > 0x7f) {
+                int lengthBytes = length & 0x7f;
+                if (lengthBytes == 0 || lengthBytes > 4) throw new IOException("Unsupported DER length in CRL");
+                length = 0;
+                for (int i = 0; i < lengthBytes; i++) {
+                    if (pos >= end) throw new IOException("Truncated CRL");
+                    length = (length << 8) | (data[pos++] & 0xff);
+                }
+            }
+            if (length < 0 || pos + length > end) throw new IOException("Truncated CRL");
+            int start = pos;
+            lastLength = length;
+            pos += length;
+            return start;
+        }
+
+        DerReader enter(int expectedTag) throws IOException {
+            int start = contentStart(expectedTag);
+            return new DerReader(data, start, start + lastLength);
+        }
+
+        void skip() throws IOException {
+            contentStart(-1);
+        }
+
+        byte[] content(int expectedTag) throws IOException {
+            int start = contentStart(expectedTag);
+            return Arrays.copyOfRange(data, start, start + lastLength);
+        }
+
+        byte[] raw(int expectedTag) throws IOException {
+            int headerStart = pos;
+            contentStart(expectedTag);
+            return Arrays.copyOfRange(data, headerStart, pos);
+        }
+
+        long time() throws IOException {
+            int tag = peek();
+            if (!isTime(tag)) throw new IOException("Expected time in CRL");
+            int start = contentStart(tag);
+            int i = start;
+            int year;
+            if (tag == TAG_UTC_TIME) {
+                year = digits(i, 2);
+                year += year >= 50 ? 1900 : 2000;
+                i += 2;
+            } else {
+                year = digits(i, 4);
+                i += 4;
+            }
+            int month = digits(i, 2);
+            int day = digits(i + 2, 2);
+            int hour = digits(i + 4, 2);
+            int minute = digits(i + 6, 2);
+            int second = i + 10 <= start + lastLength && Character.isDigit(data[i + 8]) ? digits(i + 8, 2) : 0;
+            try {
+                return ZonedDateTime.of(year, month, day, hour, minute, second, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid time in CRL", e);
+            }
+        }
+
+        private int digits(int at, int count) throws IOException {
+            int value = 0;
+            for (int i = at; i < at + count; i++) {
+                if (i >= end || data[i] < '0' || data[i] > '9') throw new IOException("Invalid time in CRL");
+                value = value * 10 + (data[i] - '0');
+            }
+            return value;
+        }
+    }
+}
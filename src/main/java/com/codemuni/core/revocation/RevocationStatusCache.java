@@ -0,0 +1,284 @@
+package com.codemuni.core.revocation;
+
+import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cache of certificate revocation statuses obtained from OCSP responders and CRLs.
+ * <p>
+ * Only the facts are stored (revoked or not, revocation time, source) together with the validity
+ * window published by the responder: an entry is served until the OCSP response's or CRL's
+ * {@code nextUpdate}, or for {@link #DEFAULT_TTL_MS} when none is given. The cache lives in
+ * {@code ~/.eMark/revocation-cache.properties}, holds at most {@link #MAX_ENTRIES} certificates
+ * (least recently checked are dropped first) and is shared by every verification in the process,
+ * so reopening a document or verifying many documents from the same CA skips the network.
+ * <p>
+ * New entries are written to disk in batches: every {@link #FLUSH_EVERY} changes, every
+ * {@link #FLUSH_INTERVAL_MS} while there are unsaved changes, and when the JVM shuts down.
+ * The file is written outside the instance lock, so lookups never wait for the disk.
+ */
+public class RevocationStatusCache {
+
+    private static final Log log = LogFactory.getLog(RevocationStatusCache.class);
+    private static final RevocationStatusCache INSTANCE =
+            new RevocationStatusCache(AppConstants.CONFIG_DIR_PATH.resolve("revocation-cache.properties"));
+
+    static final int MAX_ENTRIES = 5000;
+    // Used when the responder does not say when newer information will be available
+    static final long DEFAULT_TTL_MS = 30 * 60 * 1000L;
+    // Upper bound for responders publishing a far-away nextUpdate
+    private static final long MAX_TTL_MS = 7 * 24 * 60 * 60 * 1000L;
+    static final int FLUSH_EVERY = 50;
+    static final long FLUSH_INTERVAL_MS = 30 * 1000L;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private boolean loaded;
+    private int unsavedChanges;
+    // Serializes writers so an older snapshot never overwrites a newer one; taken before the instance lock
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "revocation-cache-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    RevocationStatusCache(Path file) {
+        this.file = file;
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "revocation-cache-save"));
+    }
+
+    public static RevocationStatusCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the remembered status of {@code cert}.
+     *
+     * @return the entry, or null if the certificate is unknown or its entry has expired
+     */
+    public synchronized Entry get(X509Certificate cert) {
+        ensureLoaded();
+        String key = keyOf(cert);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Remembers a definitive revocation status.
+     *
+     * @param revoked        whether the certificate is revoked
+     * @param revocationTime the revocation time (null if not revoked or unknown)
+     * @param nextUpdate     when the responder will publish newer information (null if not given)
+     * @param source         "OCSP" or "CRL"
+     */
+    public synchronized void put(X509Certificate cert, boolean revoked, Date revocationTime, Date nextUpdate, String source) {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        long expiresAt = nextUpdate != null ? nextUpdate.getTime() : now + DEFAULT_TTL_MS;
+        expiresAt = Math.min(expiresAt, now + MAX_TTL_MS);
+        if (expiresAt <= now) {
+            return; // Stale response - nothing worth keeping
+        }
+
+        entries.put(keyOf(cert), new Entry(revoked, revocationTime != null ? revocationTime.getTime() : 0L,
+                source, now, expiresAt));
+        trim();
+        if (++unsavedChanges == FLUSH_EVERY) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    public void clear() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                entries.clear();
+                loaded = true;
+                unsavedChanges = 0;
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Unable to delete revocation cache: " + file, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the entries to disk if anything changed since the last write.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            Properties props;
+            synchronized (this) {
+                if (unsavedChanges == 0) return;
+                props = new Properties();
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    props.setProperty(e.getKey(), e.getValue().format());
+                }
+                unsavedChanges = 0;
+            }
+            if (!save(props)) {
+                synchronized (this) {
+                    unsavedChanges++; // Try again on the next flush
+                }
+            }
+        }
+    }
+
+    private void trim() {
+        while (entries.size() > MAX_ENTRIES) {
+            String eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.isRegularFile(file)) return;
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable revocation cache: " + file, e);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Entry>> loadedEntries = new ArrayList<>();
+        for (String key : props.stringPropertyNames()) {
+            Entry entry = Entry.parse(props.getProperty(key));
+            if (entry != null && !entry.isExpired(now)) {
+                loadedEntries.add(new AbstractMap.SimpleEntry<>(key, entry));
+            }
+        }
+        // Restore recency order so the least recently checked entries are dropped first
+        loadedEntries.sort((a, b) -> Long.compare(a.getValue().checkedAt, b.getValue().checkedAt));
+        for (Map.Entry<String, Entry> e : loadedEntries) {
+            entries.put(e.getKey(), e.getValue());
+        }
+        trim();
+        log.info("Loaded " + entries.size() + " cached revocation status(es)");
+    }
+
+    private boolean save(Properties props) {
+        Path dir = file.getParent();
+        Path temp = null;
+        try {
+            FileUtils.ensureDirectory(dir.toFile());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            props.store(buffer, null);
+            temp = Files.createTempFile(dir, ".revocation-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                buffer.writeTo(out);
+            }
+            FileUtils.moveAtomically(temp, file);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to persist revocation cache", e);
+            return false;
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static String keyOf(X509Certificate cert) {
+        return cert.getIssuerX500Principal().getName() + "#" + cert.getSerialNumber().toString(16);
+    }
+
+    /**
+     * A remembered revocation status and the window in which it is valid.
+     */
+    public static final class Entry {
+        private final boolean revoked;
+        private final long revocationTime;
+        private final String source;
+        private final long checkedAt;
+        private final long expiresAt;
+
+        Entry(boolean revoked, long revocationTime, String source, long checkedAt, long expiresAt) {
+            this.revoked = revoked;
+            this.revocationTime = revocationTime;
+            this.source = source;
+            this.checkedAt = checkedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isRevoked() {
+            return revoked;
+        }
+
+        /**
+         * @return the revocation time, or null if not revoked or unknown
+         */
+        public Date getRevocationTime() {
+            return revocationTime > 0 ? new Date(revocationTime) : null;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public Date getCheckedAt() {
+            return new Date(checkedAt);
+        }
+
+        public Date getExpiresAt() {
+            return new Date(expiresAt);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        String format() {
+            return revoked + "|" + revocationTime + "|" + source + "|" + checkedAt + "|" + expiresAt;
+        }
+
+        static Entry parse(String value) {
+            String[] parts = value != null ? value.split("\\|") : new String[0];
+            if (parts.length != 5) return null;
+            try {
+                return new Entry(Boolean.parseBoolean(parts[0]), Long.parseLong(parts[1]), parts[2],
+                        Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -41,6 +41,31 @@ public class AppearanceOptions {
     public AppearanceOptions() {
     }
 
+    /**
+     * Returns a field-by-field copy; the watermark image is shared, not duplicated.
+     */
+    public AppearanceOptions copy() {
+        AppearanceOptions copy = new AppearanceOptions();
+        copy.graphicRendering = graphicRendering;
+        copy.graphicImagePath = graphicImagePath;
+        copy.includeEntireSubject = includeEntireSubject;
+        copy.includeCompany = includeCompany;
+        copy.reason = reason;
+        copy.location = location;
+        copy.customText = customText;
+        copy.dateFormat = dateFormat;
+        copy.certificationLevel = certificationLevel;
+        copy.ltvEnabled = ltvEnabled;
+        copy.timestampEnabled = timestampEnabled;
+        copy.greenTickEnabled = greenTickEnabled;
+        copy.pageNumber = pageNumber;
+        copy.coordinates = Arrays.copyOf(coordinates, coordinates.length);
+        copy.watermarkImage = watermarkImage;
+        copy.existingFieldName = existingFieldName;
+        copy.useExistingField = useExistingField;
+        return copy;
+    }
+
     public boolean isGraphicRendering() {
         return graphicRendering;
     }
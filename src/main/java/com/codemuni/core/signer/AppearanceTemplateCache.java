@@ -0,0 +1,113 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.Image;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache of the parts of a signature appearance that do not change between signatures.
+ * <p>
+ * A template holds the layer 2 text without its date line, the layer 4 text, the decoded signature
+ * graphic and the watermark already scaled and centred for the rectangle. Templates are keyed by
+ * certificate, rendering mode, text options and rectangle size, so consecutive and batch signatures
+ * only regenerate the date line. Cached images are never modified after creation and may be shared
+ * between threads.
+ */
+final class AppearanceTemplateCache {
+
+    private static final Log log = LogFactory.getLog(AppearanceTemplateCache.class);
+    private static final AppearanceTemplateCache INSTANCE = new AppearanceTemplateCache();
+    private static final int MAX_ENTRIES = 32;
+
+    private final Map<String, AppearanceTemplate> templates = new LinkedHashMap<String, AppearanceTemplate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AppearanceTemplate> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private AppearanceTemplateCache() {
+    }
+
+    static AppearanceTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the template for the certificate and options, building it on first use.
+     */
+    AppearanceTemplate get(X509Certificate cert, AppearanceOptions options, Callable<AppearanceTemplate> factory) throws Exception {
+        String key = keyOf(cert, options);
+        synchronized (templates) {
+            AppearanceTemplate template = templates.get(key);
+            if (template != null) {
+                return template;
+            }
+        }
+
+        AppearanceTemplate template = factory.call();
+        synchronized (templates) {
+            AppearanceTemplate existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        log.debug("Cached signature appearance template for " + cert.getSubjectX500Principal().getName());
+        return template;
+    }
+
+    void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    private static String keyOf(X509Certificate cert, AppearanceOptions options) {
+        int[] coords = options.getCoordinates();
+        int width = coords != null && coords.length == 4 ? coords[2] - coords[0] : 0;
+        int height = coords != null && coords.length == 4 ? coords[3] - coords[1] : 0;
+
+        StringBuilder key = new StringBuilder(256)
+                .append(cert.getSerialNumber().toString(16)).append('@').append(cert.getIssuerX500Principal().getName())
+                .append('|').append(options.isGraphicRendering())
+                .append('|').append(options.isGreenTickEnabled())
+                .append('|').append(options.getCertificationLevel())
+                .append('|').append(options.isIncludeEntireSubject())
+                .append('|').append(options.isIncludeCompany())
+                .append('|').append(options.getReason())
+                .append('|').append(options.getLocation())
+                .append('|').append(options.getCustomText())
+                .append('|').append(width).append('x').append(height)
+                .append('|').append(System.identityHashCode(options.getWatermarkImage()));
+
+        String graphicPath = options.isGraphicRendering() ? options.getGraphicImagePath() : null;
+        if (graphicPath != null) {
+            // A replaced graphic file gets a new template
+            key.append('|').append(graphicPath).append('@').append(new File(graphicPath).lastModified());
+        }
+        return key.toString();
+    }
+
+    /**
+     * The static parts of one signature appearance.
+     */
+    static final class AppearanceTemplate {
+        final String layer2Prefix;
+        final String layer4Text;
+        final Image graphic;
+        final Image watermark;
+
+        AppearanceTemplate(String layer2Prefix, String layer4Text, Image graphic, Image watermark) {
+            this.layer2Prefix = layer2Prefix;
+            this.layer4Text = layer4Text;
+            this.graphic = graphic;
+            this.watermark = watermark;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.core.revocation.CrlCache;
+import com.itextpdf.text.pdf.security.CertificateUtil;
+import com.itextpdf.text.pdf.security.CrlClient;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * {@link CrlClient} backed by the shared {@link CrlCache}.
+ * Like {@code CrlClientOnline}, it collects the distribution points of every certificate in the chain
+ * and returns all of their CRLs, but each CRL is downloaded at most once per validity period.
+ */
+public class CachingCrlClient implements CrlClient {
+
+    private static final Log log = LogFactory.getLog(CachingCrlClient.class);
+
+    private final Set<String> urls = new LinkedHashSet<>();
+    private final CrlCache cache;
+
+    public CachingCrlClient(Certificate[] chain) {
+        this(chain, CrlCache.getInstance());
+    }
+
+    public CachingCrlClient(Certificate[] chain, CrlCache cache) {
+        this.cache = cache;
+        for (Certificate cert : chain) {
+            String url = getCrlUrl((X509Certificate) cert);
+            if (url != null) urls.add(url);
+        }
+    }
+
+    @Override
+    public Collection<byte[]> getEncoded(X509Certificate checkCert, String url) {
+        if (checkCert == null) return null;
+
+        Set<String> targets = new LinkedHashSet<>(urls);
+        if (targets.isEmpty()) {
+            String certUrl = url != null ? url : getCrlUrl(checkCert);
+            if (certUrl != null) targets.add(certUrl);
+        }
+
+        Collection<byte[]> crls = new ArrayList<>();
+        for (String target : targets) {
+            byte[] crl = cache.getEncoded(target);
+            if (crl != null) {
+                crls.add(crl);
+            } else {
+                log.info("Skipped CRL (unavailable): " + target);
+            }
+        }
+        return crls;
+    }
+
+    private static String getCrlUrl(X509Certificate cert) {
+        try {
+            return CertificateUtil.getCRLURL(cert);
+        } catch (CertificateParsingException e) {
+            log.info("Skipped CRL url (certificate could not be parsed): " + cert.getSubjectDN());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.utils.HostCircuitBreaker;
+import com.itextpdf.text.pdf.security.CertificateUtil;
+import com.itextpdf.text.pdf.security.OcspClient;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import com.itextpdf.text.io.StreamUtil;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link OcspClient} that keeps OCSP responses until their {@code nextUpdate}.
+ * <p>
+ * Responses are shared across signatures, so repeated LTV signing with the same certificate makes
+ * a single OCSP round-trip. {@link #prefetch} starts the request in the background (for example
+ * while the appearance dialog is open); a later {@link #getEncoded} joins the pending request
+ * instead of issuing a second one. Responders that could not be reached are not asked again while
+ * their {@link HostCircuitBreaker} circuit is open; a responder that answers, even with an error
+ * status or a non-good certificate status, counts as reachable.
+ */
+public class CachingOcspClient implements OcspClient {
+
+    private static final Log log = LogFactory.getLog(CachingOcspClient.class);
+
+    // Used when the responder does not publish nextUpdate
+    private static final long DEFAULT_TTL_MS = 5 * 60 * 1000L;
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 15_000;
+    private static final SecureRandom NONCE_RANDOM = new SecureRandom();
+
+    private static final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    private static final Map<String, Future<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ocsp-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts fetching the OCSP response for {@code checkCert} in the background unless a valid
+     * response is already cached or a request is in flight.
+     */
+    public static void prefetch(X509Certificate checkCert, X509Certificate issuerCert) {
+        if (checkCert == null || issuerCert == null) return;
+        new CachingOcspClient().startFetch(checkCert, issuerCert, null, cacheKey(checkCert, issuerCert), true);
+    }
+
+    @Override
+    public byte[] getEncoded(X509Certificate checkCert, X509Certificate issuerCert, String url) {
+        if (checkCert == null || issuerCert == null) return null;
+        String key = cacheKey(checkCert, issuerCert);
+
+        CachedResponse cached = responses.get(key);
+        if (cached != null && cached.isValid()) {
+            log.info("OCSP response served from cache for serial " + checkCert.getSerialNumber());
+            return cached.encoded;
+        }
+
+        try {
+            return startFetch(checkCert, issuerCert, url, key, false).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("OCSP request failed: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the pending request for {@code key}, creating it if there is none.
+     * Background requests run on the prefetch pool; foreground ones on the calling thread.
+     */
+    private Future<byte[]> startFetch(X509Certificate checkCert, X509Certificate issuerCert, String url,
+                                      String key, boolean background) {
+        CachedResponse cached = responses.get(key);
+        if (background && cached != null && cached.isValid()) {
+            return null;
+        }
+
+        FutureTask<byte[]> task = new FutureTask<>(() -> {
+            try {
+                return fetch(checkCert, issuerCert, url, key);
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+
+        Future<byte[]> existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            return existing;
+        }
+        if (background) {
+            prefetchExecutor.execute(task);
+        } else {
+            task.run();
+        }
+        return task;
+    }
+
+    private byte[] fetch(X509Certificate checkCert, X509Certificate issuerCert, String url, String key) {
+        String responderUrl = url != null ? url : CertificateUtil.getOCSPURL(checkCert);
+        if (responderUrl == null) {
+            return null;
+        }
+        HostCircuitBreaker breaker = HostCircuitBreaker.getInstance();
+        if (!breaker.allowRequest(responderUrl)) {
+            log.info("OCSP responder unreachable, skipping request: " + responderUrl);
+            return null;
+        }
+
+        byte[] encoded;
+        try {
+            encoded = request(checkCert, issuerCert, responderUrl, breaker);
+        } catch (Exception e) {
+            log.warn("OCSP request to " + responderUrl + " failed: " + e.getMessage());
+            return null;
+        }
+        if (encoded != null) {
+            responses.put(key, new CachedResponse(encoded, expiryOf(encoded)));
+            log.info("OCSP response cached for serial " + checkCert.getSerialNumber());
+        }
+        return encoded;
+    }
+
+    /**
+     * Asks the responder for the status of {@code checkCert}. Only a failure to get an HTTP answer is
+     * reported to the circuit breaker.
+     *
+     * @return the encoded BasicOCSPResp if the certificate is good, otherwise null
+     */
+    private static byte[] request(X509Certificate checkCert, X509Certificate issuerCert, String responderUrl,
+                                  HostCircuitBreaker breaker) throws Exception {
+        CertificateID id = new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new JcaX509CertificateHolder(issuerCert), checkCert.getSerialNumber());
+        byte[] nonce = new byte[16];
+        NONCE_RANDOM.nextBytes(nonce);
+        Extension nonceExtension = new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
+                new DEROctetString(new DEROctetString(nonce).getEncoded()));
+        byte[] requestBytes = new OCSPReqBuilder()
+                .addRequest(id)
+                .setRequestExtensions(new Extensions(new Extension[]{nonceExtension}))
+                .build()
+                .getEncoded();
+
+        HttpURLConnection con = null;
+        boolean answered = false;
+        byte[] responseBytes;
+        try {
+            con = (HttpURLConnection) new URL(responderUrl).openConnection();
+            con.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            con.setReadTimeout(READ_TIMEOUT_MS);
+            con.setDoOutput(true);
+            con.setRequestProperty("Content-Type", "application/ocsp-request");
+            con.setRequestProperty("Accept", "application/ocsp-response");
+            try (OutputStream out = con.getOutputStream()) {
+                out.write(requestBytes);
+            }
+
+            int code = con.getResponseCode();
+            answered = true;
+            breaker.recordSuccess(responderUrl);
+            if (code / 100 != 2) {
+                log.warn("OCSP responder " + responderUrl + " returned HTTP " + code);
+                return null;
+            }
+            try (InputStream in = con.getInputStream()) {
+                responseBytes = StreamUtil.inputStreamToArray(in);
+            }
+        } catch (IOException e) {
+            if (!answered) {
+                breaker.recordFailure(responderUrl);
+            }
+            throw e;
+        } finally {
+            if (con != null) con.disconnect();
+        }
+
+        OCSPResp response = new OCSPResp(responseBytes);
+        if (response.getStatus() != OCSPResp.SUCCESSFUL) {
+            log.warn("OCSP responder " + responderUrl + " answered with status " + response.getStatus());
+            return null;
+        }
+        BasicOCSPResp basic = (BasicOCSPResp) response.getResponseObject();
+        SingleResp[] singles = basic.getResponses();
+        if (singles.length != 1 || singles[0].getCertStatus() != CertificateStatus.GOOD) {
+            log.warn("OCSP responder " + responderUrl + " did not report certificate "
+                    + checkCert.getSerialNumber() + " as good");
+            return null;
+        }
+        return basic.getEncoded();
+    }
+
+    private static long expiryOf(byte[] encoded) {
+        try {
+            BasicOCSPResp response = new BasicOCSPResp(BasicOCSPResponse.getInstance(ASN1Primitive.fromByteArray(encoded)));
+            SingleResp[] singles = response.getResponses();
+            Date nextUpdate = singles.length > 0 ? singles[0].getNextUpdate() : null;
+            if (nextUpdate != null) {
+                return nextUpdate.getTime();
+            }
+        } catch (Exception e) {
+            log.debug("Unable to read nextUpdate from OCSP response", e);
+        }
+        return System.currentTimeMillis() + DEFAULT_TTL_MS;
+    }
+
+    private static String cacheKey(X509Certificate checkCert, X509Certificate issuerCert) {
+        return checkCert.getSerialNumber() + ":" + issuerCert.getSubjectX500Principal().getName();
+    }
+
+    private static class CachedResponse {
+        final byte[] encoded;
+        final long expiresAt;
+
+        CachedResponse(byte[] encoded, long expiresAt) {
+            this.encoded = encoded;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
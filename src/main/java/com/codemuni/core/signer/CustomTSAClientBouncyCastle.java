@@ -1,11 +1,31 @@
 package com.codemuni.core.signer;
 
+import com.codemuni.config.ConfigManager;
 import com.codemuni.core.exception.TSAConfigurationException;
 import com.itextpdf.text.pdf.security.TSAClientBouncyCastle;
+import org.bouncycastle.tsp.TSPException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CustomTSAClientBouncyCastle extends TSAClientBouncyCastle {
 
+    // Largest token seen per TSA URL; tokens from one authority vary by only a few bytes
+    private static final Map<String, Integer> observedTokenSizes = new ConcurrentHashMap<>();
+    // TSA that answered the request in progress on this thread (hedging may pick a fallback)
+    private static final ThreadLocal<String> answeringUrl = new ThreadLocal<>();
+    private static final int OBSERVED_TOKEN_SLACK = 256;
+    // Reserved for an authority that has not issued a token yet: long TSA chains and embedded certificates
+    // easily exceed the configured estimate, and the reservation cannot grow once the document is prepared
+    private static final int UNOBSERVED_TOKEN_FLOOR = 20_000;
+    private static final long DEFAULT_HEDGE_DELAY_MS = 1500;
+
     private final String url;
+    private TsaHttpTransport transport;
 
     public CustomTSAClientBouncyCastle(String url) {
         super(validateUrl(url));
@@ -18,8 +38,41 @@ public class CustomTSAClientBouncyCastle extends TSAClientBouncyCastle {
     }
 
     public CustomTSAClientBouncyCastle(String url, String username, String password, int tokSzEstimate, String digestAlgorithm) {
+        this(url, Collections.<String>emptyList(), username, password, tokSzEstimate, digestAlgorithm, DEFAULT_HEDGE_DELAY_MS);
+    }
+
+    /**
+     * @param fallbackUrls additional TSAs asked when the primary is slow or failing
+     * @param hedgeDelayMs how long to wait for one TSA before also asking the next
+     */
+    public CustomTSAClientBouncyCastle(String url, List<String> fallbackUrls, String username, String password,
+                                       int tokSzEstimate, String digestAlgorithm, long hedgeDelayMs) {
         super(validateUrl(url), username, password, tokSzEstimate, digestAlgorithm);
         this.url = url;
+
+        List<String> urls = new ArrayList<>();
+        urls.add(tsaURL);
+        for (String fallback : fallbackUrls) {
+            String validated = validateUrl(fallback);
+            if (!urls.contains(validated)) urls.add(validated);
+        }
+        this.transport = new TsaHttpTransport(urls, username, password, hedgeDelayMs);
+    }
+
+    /**
+     * Creates a client for the timestamp server configured in the application settings.
+     */
+    public static CustomTSAClientBouncyCastle fromConfig() {
+        Map<String, String> tsaConfig = ConfigManager.getTimestampServer();
+        return new CustomTSAClientBouncyCastle(
+                tsaConfig.get("url"),
+                ConfigManager.getTimestampFallbackUrls(),
+                tsaConfig.getOrDefault("username", null),
+                tsaConfig.getOrDefault("password", null),
+                8192,
+                "SHA-256",
+                ConfigManager.getTimestampHedgeDelayMs(DEFAULT_HEDGE_DELAY_MS)
+        );
     }
 
     /**
@@ -40,4 +93,53 @@ public class CustomTSAClientBouncyCastle extends TSAClientBouncyCastle {
     public String getUrl() {
         return url;
     }
+
+    /**
+     * Returns the largest token size previously issued by any of the configured authorities, since a
+     * hedged request may be answered by any of them. Until every authority has issued a token, the
+     * configured estimate, but at least {@link #UNOBSERVED_TOKEN_FLOOR} bytes, is the lower bound.
+     */
+    @Override
+    public int getTokenSizeEstimate() {
+        List<String> urls = transport != null ? transport.getUrls() : Collections.singletonList(tsaURL);
+        int largest = 0;
+        boolean allObserved = true;
+        for (String tsa : urls) {
+            Integer observed = observedTokenSizes.get(tsa);
+            if (observed != null) {
+                largest = Math.max(largest, observed + OBSERVED_TOKEN_SLACK);
+            } else {
+                allObserved = false;
+            }
+        }
+        return allObserved ? largest
+                : Math.max(largest, Math.max(super.getTokenSizeEstimate(), UNOBSERVED_TOKEN_FLOOR));
+    }
+
+    /**
+     * Sends the request over the pooled, hedged transport instead of a one-shot connection.
+     */
+    @Override
+    protected byte[] getTSAResponse(byte[] requestBytes) throws IOException {
+        if (transport == null) {
+            transport = new TsaHttpTransport(Collections.singletonList(tsaURL), tsaUsername, tsaPassword, DEFAULT_HEDGE_DELAY_MS);
+        }
+        TsaHttpTransport.Response response = transport.post(requestBytes);
+        answeringUrl.set(response.getUrl());
+        return response.getBody();
+    }
+
+    @Override
+    public byte[] getTimeStampToken(byte[] imprint) throws IOException, TSPException {
+        try {
+            byte[] token = super.getTimeStampToken(imprint);
+            String answeredBy = answeringUrl.get();
+            if (token != null && answeredBy != null) {
+                observedTokenSizes.merge(answeredBy, token.length, Math::max);
+            }
+            return token;
+        } finally {
+            answeringUrl.remove();
+        }
+    }
 }
@@ -0,0 +1,395 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.core.exception.SigningProcessException;
+import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.core.model.KeystoreAndCertificateInfo;
+import com.codemuni.utils.FileUtils;
+import com.codemuni.utils.PdfReaderFactory;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDeveloperExtension;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.security.BouncyCastleDigest;
+import com.itextpdf.text.pdf.security.DigestAlgorithms;
+import com.itextpdf.text.pdf.security.ExternalDigest;
+import com.itextpdf.text.pdf.security.ExternalSignature;
+import com.itextpdf.text.pdf.security.ExternalSignatureContainer;
+import com.itextpdf.text.pdf.security.MakeSignature;
+import com.itextpdf.text.pdf.security.PdfPKCS7;
+import com.itextpdf.text.pdf.security.PrivateKeySignature;
+import com.itextpdf.text.pdf.security.TSAClient;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Deferred (hash-then-sign) signing pipeline for many documents with one key.
+ * <p>
+ * Each document goes through three stages:
+ * <ol>
+ *   <li>prepare (worker threads): build the appearance, reserve /Contents via
+ *       {@link MakeSignature#signExternalContainer} with a blank container and digest the byte range;</li>
+ *   <li>sign (single token thread): compute the authenticated attributes and perform the private-key
+ *       operation, which is the only step that touches the token;</li>
+ *   <li>inject (worker threads): fetch the timestamp, encode the CMS container and write it into the
+ *       reserved gap of the prepared file, then move the file into place.</li>
+ * </ol>
+ * Because preparation and injection run beside the token thread, the device never waits on PDF work.
+ * Revocation data is fetched once for the whole run. The reserved size is computed per document, so
+ * timestamp tokens observed by earlier documents size the later ones; a document whose token did not
+ * fit is prepared and signed once more with a reservation that covers it.
+ * <p>
+ * Every document is measured with its own {@link SigningMetrics.Timer}: appearance and digest while
+ * preparing, the private-key operation while signing, the timestamp while injecting, and the time
+ * spent waiting between stages as {@link SigningMetrics.Phase#QUEUED}.
+ * <p>
+ * At most {@code 2 * workerThreads} documents are in the pipeline at a time; {@link #submit} blocks
+ * until a slot is free. Every document in flight holds a full staging copy in its target directory, so
+ * this bounds disk use and lets the first documents finish before the last ones are prepared.
+ */
+public class DeferredSigningPipeline implements AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(DeferredSigningPipeline.class);
+    private static final MakeSignature.CryptoStandard SIGNATURE_STANDARD = MakeSignature.CryptoStandard.CADES;
+
+    private final AppearanceOptions options;
+    private final String signatureCreator;
+    private final String signatureFieldName;
+    private final TSAClient tsaClient;
+
+    private final Certificate[] chain;
+    private final KeyStoreProvider chainProvider;
+    private final ExternalDigest digest = new BouncyCastleDigest();
+    private final ExternalSignature signature;
+    private final Collection<byte[]> crlBytes;
+    private final byte[] ocspBytes;
+
+    private final ExecutorService workers;
+    private final ExecutorService tokenExecutor;
+    private final Semaphore inFlight;
+
+    /**
+     * @param provider      logged-in key store; only the token thread uses its private key
+     * @param options       appearance applied to every document
+     * @param tsaClient     timestamp client, or null
+     * @param workerThreads threads used for preparation and injection
+     */
+    public DeferredSigningPipeline(KeyStoreProvider provider, AppearanceOptions options, String signatureCreator,
+                                   String signatureFieldName, CustomTSAClientBouncyCastle tsaClient, int workerThreads) {
+        this.options = options;
+        this.signatureCreator = signatureCreator;
+        this.signatureFieldName = signatureFieldName;
+        this.tsaClient = options.isTimestampEnabled() ? tsaClient : null;
+
+        try {
+            this.chain = provider.getCertificateChain();
+            this.chainProvider = new ChainOnlyProvider(chain);
+            this.signature = new PrivateKeySignature(provider.getPrivateKey(), DigestAlgorithms.SHA256, provider.getProvider());
+
+            if (options.isLtvEnabled()) {
+                this.crlBytes = Signer.fetchCrls(chain, Signer.prepareLtvComponents(chain));
+                this.ocspBytes = Signer.fetchOcsp(chain, new CachingOcspClient());
+            } else {
+                this.crlBytes = null;
+                this.ocspBytes = null;
+            }
+        } catch (Exception e) {
+            throw new SigningProcessException(Signer.buildDetailedMessage("Unable to initialise signing pipeline", e), e);
+        }
+
+        this.inFlight = new Semaphore(2 * Math.max(1, workerThreads));
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "signing-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tokenExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signing-token");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a document for signing, waiting first while the pipeline is full.
+     *
+     * @param input       the document to sign
+     * @param pdfPassword owner/user password of the document, or null
+     * @param target      where the signed document is written
+     * @return completes with {@code target} once the signed document is in place
+     */
+    public CompletableFuture<File> submit(File input, String pdfPassword, File target) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<File> cancelled = new CompletableFuture<>();
+            cancelled.completeExceptionally(new CompletionException(new SigningProcessException(
+                    "Interrupted before signing " + input.getName(), e)));
+            return cancelled;
+        }
+
+        return run(input, pdfPassword, target)
+                .handle((file, error) -> {
+                    if (error == null) return CompletableFuture.completedFuture(file);
+                    if (tsaClient == null || !Signer.isReservationTooSmall(error)) return failed(error);
+                    log.warn("Timestamp token for " + input.getName() + " did not fit the reserved space, signing again");
+                    return run(input, pdfPassword, target);
+                })
+                .thenCompose(Function.identity())
+                .whenComplete((file, error) -> {
+                    inFlight.release();
+                    if (error != null) log.error("Deferred signing failed for " + input.getAbsolutePath(), error);
+                });
+    }
+
+    private CompletableFuture<File> run(File input, String pdfPassword, File target) {
+        PreparedDocument document = new PreparedDocument(input, target);
+        return CompletableFuture
+                .supplyAsync(() -> prepare(document, pdfPassword), workers)
+                .thenApplyAsync(this::signDigest, tokenExecutor)
+                .thenApplyAsync(this::inject, workers);
+    }
+
+    private static CompletableFuture<File> failed(Throwable error) {
+        CompletableFuture<File> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        tokenExecutor.shutdown();
+    }
+
+    private PreparedDocument prepare(PreparedDocument document, String pdfPassword) {
+        document.startStage();
+        File input = document.input;
+        PdfReader reader = null;
+        try {
+            reader = PdfReaderFactory.open(input, pdfPassword);
+            document.stagingFile = File.createTempFile(".emark-", ".tmp", document.target.getAbsoluteFile().getParentFile());
+
+            // With a null output stream the prepared document stays in the staging file
+            PdfStamper stamper = PdfStamper.createSignature(reader, null, '\0', document.stagingFile, true);
+            PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+            long phaseStart = System.nanoTime();
+            new SignatureAppearanceBuilder(chainProvider, options).configureAppearance(signatureFieldName, appearance, signatureCreator);
+            if (options.getWatermarkImage() != null) {
+                Signer.applyWatermarkToSignatureAppearance(appearance, options);
+            }
+            document.timer.add(SigningMetrics.Phase.APPEARANCE, phaseStart);
+            appearance.setCertificate(chain[0]);
+            appearance.addDeveloperExtension(PdfDeveloperExtension.ESIC_1_7_EXTENSIONLEVEL2);
+
+            document.reservedSize = SignatureSizeCalculator.computeSize(chain, signature, digest, crlBytes, ocspBytes, tsaClient);
+            MakeSignature.signExternalContainer(appearance, new DigestingContainer(document), document.reservedSize);
+            document.fieldName = appearance.getFieldName();
+            document.endStage();
+            return document;
+        } catch (Exception e) {
+            document.discard();
+            throw new CompletionException(new SigningProcessException(
+                    Signer.buildDetailedMessage("Preparing " + input.getName() + " failed", e), e));
+        } finally {
+            if (reader != null) reader.close();
+        }
+    }
+
+    /**
+     * Runs on the token thread: the only stage that uses the private key.
+     */
+    private PreparedDocument signDigest(PreparedDocument document) {
+        document.startStage();
+        try {
+            PdfPKCS7 pkcs7 = new PdfPKCS7(null, chain, signature.getHashAlgorithm(), null, digest, false);
+            byte[] attributes = pkcs7.getAuthenticatedAttributeBytes(document.hash, ocspBytes, crlBytes, SIGNATURE_STANDARD);
+            pkcs7.setExternalDigest(document.timer.timed(signature).sign(attributes), null, signature.getEncryptionAlgorithm());
+            document.pkcs7 = pkcs7;
+            document.endStage();
+            return document;
+        } catch (Exception e) {
+            document.discard();
+            throw new CompletionException(new SigningProcessException(
+                    Signer.buildDetailedMessage("Signing " + document.input.getName() + " failed", e), e));
+        }
+    }
+
+    private File inject(PreparedDocument document) {
+        document.startStage();
+        try {
+            byte[] cms = document.pkcs7.getEncodedPKCS7(document.hash, document.timer.timed(tsaClient),
+                    ocspBytes, crlBytes, SIGNATURE_STANDARD);
+            if (cms.length > document.reservedSize) {
+                throw new IOException("Not enough space: signature needs " + cms.length + " bytes, reserved " + document.reservedSize);
+            }
+            writeIntoGap(document.stagingFile, document.fieldName, cms);
+            FileUtils.moveAtomically(document.stagingFile.toPath(), document.target.toPath());
+            document.timer.finish();
+            return document.target;
+        } catch (Exception e) {
+            document.discard();
+            throw new CompletionException(new SigningProcessException(
+                    Signer.buildDetailedMessage("Writing " + document.target.getName() + " failed", e), e));
+        }
+    }
+
+    /**
+     * Writes the hex-encoded container into the /Contents gap in place, without copying the document.
+     */
+    private void writeIntoGap(File file, String fieldName, byte[] cms) throws IOException {
+        long[] gaps;
+        PdfReader reader = PdfReaderFactory.open(file, (byte[]) null);
+        try {
+            PdfDictionary sigDict = reader.getAcroFields().getSignatureDictionary(fieldName);
+            PdfArray byteRange = sigDict != null ? sigDict.getAsArray(PdfName.BYTERANGE) : null;
+            if (byteRange == null || byteRange.size() != 4) {
+                throw new IOException("Prepared signature field not found: " + fieldName);
+            }
+            gaps = byteRange.asLongArray();
+        } finally {
+            reader.close();
+        }
+
+        int available = (int) (gaps[2] - gaps[1] - 2) / 2;
+        if (cms.length > available) {
+            throw new IOException("Not enough space in signature gap");
+        }
+
+        byte[] hex = new byte[available * 2];
+        byte[] digits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < hex.length; i++) {
+            hex[i] = '0';
+        }
+        for (int i = 0; i < cms.length; i++) {
+            hex[2 * i] = digits[(cms[i] >> 4) & 0x0F];
+            hex[2 * i + 1] = digits[cms[i] & 0x0F];
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(gaps[1] + 1); // skip '<'
+            raf.write(hex);
+        }
+    }
+
+    /**
+     * Blank container that only records the digest of the byte range.
+     */
+    private class DigestingContainer implements ExternalSignatureContainer {
+        private final PreparedDocument document;
+
+        DigestingContainer(PreparedDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public byte[] sign(InputStream data) throws GeneralSecurityException {
+            try {
+                document.hash = DigestAlgorithms.digest(data,
+                        document.timer.timed(digest).getMessageDigest(signature.getHashAlgorithm()));
+            } catch (IOException e) {
+                throw new GeneralSecurityException("Unable to digest document", e);
+            }
+            return new byte[0];
+        }
+
+        @Override
+        public void modifySigningDictionary(PdfDictionary signDic) {
+            signDic.put(PdfName.FILTER, PdfName.ADOBE_PPKLITE);
+            signDic.put(PdfName.SUBFILTER, PdfName.ETSI_CADES_DETACHED);
+        }
+    }
+
+    private static class PreparedDocument {
+        final File input;
+        final File target;
+        final SigningMetrics.Timer timer = SigningMetrics.start();
+        File stagingFile;
+        String fieldName;
+        int reservedSize;
+        byte[] hash;
+        PdfPKCS7 pkcs7;
+        // When the document last left a stage (or was submitted)
+        private long stageEndNanos = System.nanoTime();
+
+        PreparedDocument(File input, File target) {
+            this.input = input;
+            this.target = target;
+        }
+
+        void startStage() {
+            timer.add(SigningMetrics.Phase.QUEUED, stageEndNanos);
+        }
+
+        void endStage() {
+            stageEndNanos = System.nanoTime();
+        }
+
+        void discard() {
+            if (stagingFile != null && stagingFile.exists() && !stagingFile.delete()) {
+                log.warn("Unable to delete staging file: " + stagingFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Exposes only the certificate chain to the appearance builder on worker threads,
+     * so nothing but the token thread touches the key store.
+     */
+    private static class ChainOnlyProvider implements KeyStoreProvider {
+        private final Certificate[] chain;
+
+        ChainOnlyProvider(Certificate[] chain) {
+            this.chain = chain;
+        }
+
+        @Override
+        public List<KeystoreAndCertificateInfo> loadCertificates() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getProvider() {
+            return null;
+        }
+
+        @Override
+        public PrivateKey getPrivateKey() {
+            throw new UnsupportedOperationException("Private key is only available on the token thread.");
+        }
+
+        @Override
+        public X509Certificate getCertificate() {
+            return (X509Certificate) chain[0];
+        }
+
+        @Override
+        public Certificate[] getCertificateChain() {
+            return chain;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.codemuni.core.signer;
 
 import com.codemuni.core.exception.NotADigitalSignatureException;
 import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.core.signer.AppearanceTemplateCache.AppearanceTemplate;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Image;
 import com.itextpdf.text.Rectangle;
@@ -25,6 +26,8 @@ import static com.codemuni.core.keyStoresProvider.X509SubjectUtils.*;
  * Handles the configuration and appearance of PDF digital signatures.
  * This class manages signature visualization, rendering modes, watermarks,
  * and certificate information display.
+ * Static parts of the appearance are reused from {@link AppearanceTemplateCache};
+ * only the date line is generated per signature.
  */
 public class SignatureAppearanceBuilder {
 
@@ -66,15 +69,47 @@ public class SignatureAppearanceBuilder {
 
         setVisibleSignature(signatureFieldName, appearance);
 
-        setRenderingMode(appearance);
+        AppearanceTemplate template = loadTemplate(getCertificate());
+
+        setRenderingMode(appearance, template);
         setCertificationAndInfo(appearance);
-        setLayer2Text(appearance);
+        setLayer2Text(appearance, template);
+
+        if (template.watermark != null) {
+            addWatermarkToLayer(appearance, template.watermark);
+        }
+    }
 
-        if (options.getWatermarkImage() != null) {
-            applyWatermark(appearance);
+    /**
+     * Returns the cached template for the certificate and options, building it on first use.
+     */
+    private AppearanceTemplate loadTemplate(X509Certificate cert) {
+        try {
+            return AppearanceTemplateCache.getInstance().get(cert, options, () -> buildTemplate(cert));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to prepare signature appearance.", e);
         }
     }
 
+    /**
+     * Decodes the images and composes the text that stay the same for every signature.
+     */
+    private AppearanceTemplate buildTemplate(X509Certificate cert) {
+        StringBuilder sb = new StringBuilder();
+        appendCertificateInfo(sb, cert);
+        appendMetadata(sb);
+
+        String layer4Text = options.getCertificationLevel() != PdfSignatureAppearance.NOT_CERTIFIED
+                ? "Signed By: " + getCommonName(cert)
+                : null;
+        Image graphic = options.isGraphicRendering() ? loadGraphicImage() : null;
+        Image watermark = options.getWatermarkImage() != null ? prepareWatermark() : null;
+
+        return new AppearanceTemplate(sb.toString(), layer4Text, graphic, watermark);
+    }
+
     /**
      * Configures the visible signature position and field name.
      * Supports both creating new signature fields and signing into existing unsigned fields.
@@ -115,28 +150,26 @@ public class SignatureAppearanceBuilder {
     /**
      * Sets the rendering mode for the signature appearance.
      */
-    private void setRenderingMode(PdfSignatureAppearance appearance) throws CertificateExpiredException, NotADigitalSignatureException, KeyStoreException {
+    private void setRenderingMode(PdfSignatureAppearance appearance, AppearanceTemplate template) {
         if (options.isGraphicRendering()) {
-            configureGraphicRendering(appearance);
+            appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.GRAPHIC_AND_DESCRIPTION);
+            appearance.setSignatureGraphic(template.graphic); // iText draws a copy, so the cached image is shared safely
         } else {
             configureTextRendering(appearance);
         }
 
-        if (options.getCertificationLevel() != PdfSignatureAppearance.NOT_CERTIFIED) {
-            appearance.setLayer4Text("Signed By: " + getCommonName(getCertificate())); // Set layer 4 text to the common name of the certificate if the signature is certified
+        if (template.layer4Text != null) {
+            appearance.setLayer4Text(template.layer4Text); // Set layer 4 text to the common name of the certificate if the signature is certified
         }
         appearance.setAcro6Layers(!options.isGreenTickEnabled());
     }
 
     /**
-     * Configures graphic-based rendering mode.
+     * Decodes the signature graphic used by graphic rendering mode.
      */
-    private void configureGraphicRendering(PdfSignatureAppearance appearance) {
-
-        appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.GRAPHIC_AND_DESCRIPTION);
+    private Image loadGraphicImage() {
         try {
-            Image img = Image.getInstance(options.getGraphicImagePath());
-            appearance.setSignatureGraphic(img);
+            return Image.getInstance(options.getGraphicImagePath());
         } catch (Exception e) {
             log.error("Failed to load signature graphic image from: " + options.getGraphicImagePath(), e);
             throw new RuntimeException("Failed to load signature graphic image.", e);
@@ -182,26 +215,12 @@ public class SignatureAppearanceBuilder {
     }
 
     /**
-     * Builds and sets the text content for layer 2 of the signature.
-     */
-    private void setLayer2Text(PdfSignatureAppearance appearance)
-            throws KeyStoreException, CertificateExpiredException, NotADigitalSignatureException {
-        X509Certificate cert = getCertificate();
-        String layerText = buildLayerText(cert);
-        appearance.setLayer2Text(layerText);
-    }
-
-    /**
-     * Builds the formatted text to display in the signature.
+     * Sets the text content for layer 2 of the signature: the cached static text plus the current date.
      */
-    private String buildLayerText(X509Certificate cert) {
-        StringBuilder sb = new StringBuilder();
-
-        appendCertificateInfo(sb, cert);
-        appendMetadata(sb);
+    private void setLayer2Text(PdfSignatureAppearance appearance, AppearanceTemplate template) {
+        StringBuilder sb = new StringBuilder(template.layer2Prefix);
         appendDateTime(sb);
-
-        return sb.toString();
+        appearance.setLayer2Text(sb.toString());
     }
 
     /**
@@ -262,24 +281,24 @@ public class SignatureAppearanceBuilder {
     }
 
     /**
-     * Applies a watermark image to the signature appearance.
+     * Scales and centres a copy of the watermark image for the signature rectangle.
      */
-    private void applyWatermark(PdfSignatureAppearance appearance) {
+    private Image prepareWatermark() {
         int[] coords = options.getCoordinates();
 
         if (coords == null || coords.length != REQUIRED_COORDINATE_COUNT) {
             log.warn("Cannot apply watermark: invalid coordinates");
-            return;
+            return null;
         }
 
         float rectWidth = coords[2] - coords[0];
         float rectHeight = coords[3] - coords[1];
 
-        Image watermark = options.getWatermarkImage();
+        Image watermark = Image.getInstance(options.getWatermarkImage());
         watermark.scaleToFit(rectWidth, rectHeight);
 
         positionWatermark(watermark, rectWidth, rectHeight);
-        addWatermarkToLayer(appearance, watermark);
+        return watermark;
     }
 
     /**
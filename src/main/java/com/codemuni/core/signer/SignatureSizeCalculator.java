@@ -0,0 +1,72 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.pdf.security.ExternalDigest;
+import com.itextpdf.text.pdf.security.ExternalSignature;
+import com.itextpdf.text.pdf.security.MakeSignature;
+import com.itextpdf.text.pdf.security.PdfPKCS7;
+import com.itextpdf.text.pdf.security.TSAClient;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collection;
+
+/**
+ * Computes the /Contents reservation for a signature from the material that will actually be embedded.
+ * <p>
+ * A dry-run CMS container is encoded with the real certificate chain, CRLs and OCSP response and a
+ * placeholder signature value of the key's size. Only the timestamp token, which is not known until
+ * the document digest exists, is estimated.
+ */
+final class SignatureSizeCalculator {
+
+    // Covers DER length growth of the real signature and timestamp attribute wrapping
+    private static final int SIZE_MARGIN = 2048;
+    private static final int DEFAULT_SIGNATURE_LENGTH = 512;
+
+    private SignatureSizeCalculator() {
+    }
+
+    /**
+     * @param chain         the signer certificate chain
+     * @param signature     the signature that will be applied
+     * @param digest        digest provider
+     * @param crlBytes      CRLs that will be embedded, or null
+     * @param ocsp          OCSP response that will be embedded, or null
+     * @param tsaClient     timestamp client, or null
+     * @return the number of bytes to reserve for the encoded CMS container
+     */
+    static int computeSize(Certificate[] chain, ExternalSignature signature, ExternalDigest digest,
+                           Collection<byte[]> crlBytes, byte[] ocsp, TSAClient tsaClient)
+            throws GeneralSecurityException {
+
+        String hashAlgorithm = signature.getHashAlgorithm();
+        PdfPKCS7 dryRun = new PdfPKCS7(null, chain, hashAlgorithm, null, digest, false);
+        byte[] placeholderHash = new byte[digest.getMessageDigest(hashAlgorithm).getDigestLength()];
+        dryRun.setExternalDigest(new byte[signatureLength(chain[0].getPublicKey())], null,
+                signature.getEncryptionAlgorithm());
+
+        int size = dryRun.getEncodedPKCS7(placeholderHash, null, ocsp, crlBytes, MakeSignature.CryptoStandard.CADES).length;
+        if (tsaClient != null) {
+            size += tsaClient.getTokenSizeEstimate();
+        }
+        return size + SIZE_MARGIN;
+    }
+
+    /**
+     * Upper bound of the raw signature value length for the given key.
+     */
+    private static int signatureLength(PublicKey publicKey) {
+        if (publicKey instanceof RSAPublicKey) {
+            return (((RSAPublicKey) publicKey).getModulus().bitLength() + 7) / 8;
+        }
+        if (publicKey instanceof ECPublicKey) {
+            int fieldBytes = (((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            // DER SEQUENCE of two INTEGERs, each possibly carrying a leading zero byte
+            return 2 * (fieldBytes + 1) + 8;
+        }
+        return DEFAULT_SIGNATURE_LENGTH;
+    }
+}
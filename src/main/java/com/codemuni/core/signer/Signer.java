@@ -5,18 +5,25 @@ import com.codemuni.core.exception.SigningProcessException;
 import com.codemuni.core.exception.TSAConfigurationException;
 import com.codemuni.core.exception.UserCancelledPasswordEntryException;
 import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.utils.FileUtils;
+import com.codemuni.utils.PdfReaderFactory;
 import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.security.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.security.KeyStoreException;
 import java.security.SignatureException;
 import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class Signer {
@@ -29,6 +36,16 @@ public class Signer {
     private static final int CMS_OVERHEAD = 15_000;              // Increased for larger CMS structures
     private static final int SAFETY_MARGIN = 50_000;             // Increased safety margin for 2048-bit keys
 
+    private boolean exactSignatureSize = true;
+
+    /**
+     * When enabled (the default), revocation data is fetched before signing and the signature
+     * container is sized from it. When disabled, the fixed size estimates are reserved instead.
+     */
+    public void setExactSignatureSize(boolean exactSignatureSize) {
+        this.exactSignatureSize = exactSignatureSize;
+    }
+
     public static String buildDetailedMessage(String context, Exception e) {
         String baseMsg = context != null ? context : "An error occurred";
         String exceptionType = e.getClass().getSimpleName();
@@ -54,15 +71,169 @@ public class Signer {
         return cause;
     }
 
-    public String sign(PdfReader reader, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient) throws UserCancelledPasswordEntryException {
+    /**
+     * Signs the document and streams the signed PDF into {@code out}.
+     * The incremental update is staged in a temporary file instead of an in-memory buffer,
+     * so heap usage does not grow with the document size. The stream is closed once written.
+     */
+    public void sign(PdfReader reader, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, OutputStream out) throws UserCancelledPasswordEntryException {
+        if (out == null) {
+            throw new IllegalArgumentException("OutputStream cannot be null.");
+        }
+        signDocument(reader, keyStoreProvider, signatureCreator, signatureFieldName, options, tsaClient,
+                out, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Signs the document into {@code target}.
+     * The signed PDF is written to a staging file in the target's directory and then atomically
+     * renamed into place, so the target is either left untouched or contains the complete document.
+     */
+    public void signToFile(PdfReader reader, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, File target) throws UserCancelledPasswordEntryException {
+        if (target == null) {
+            throw new IllegalArgumentException("Target file cannot be null.");
+        }
+
+        File stagingFile;
+        try {
+            stagingFile = File.createTempFile(".emark-", ".tmp", target.getAbsoluteFile().getParentFile());
+        } catch (IOException e) {
+            if (reader != null) reader.close();
+            throw new SigningProcessException(buildDetailedMessage("Unable to create staging file for signed PDF", e), e);
+        }
+
+        boolean moved = false;
+        try {
+            // With a null output stream iText keeps the finished document in the staging file
+            signDocument(reader, keyStoreProvider, signatureCreator, signatureFieldName, options, tsaClient,
+                    null, stagingFile);
+            FileUtils.moveAtomically(stagingFile.toPath(), target.toPath());
+            moved = true;
+        } catch (IOException e) {
+            throw new SigningProcessException(buildDetailedMessage("Saving signed PDF failed", e), e);
+        } finally {
+            if (!moved && stagingFile.exists() && !stagingFile.delete()) {
+                log.warn("Unable to delete staging file: " + stagingFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Signs several signature fields of one document and writes the result to {@code target} once.
+     * <p>
+     * Every field still becomes its own incremental revision, but the intermediate revisions are
+     * chained through staging files next to the target and opened with partial reads, so the source
+     * document is parsed once, the target is written once and the caller re-renders once.
+     * Only the first signature may certify the document; later fields are signed as approval signatures.
+     * A first signature certifying with {@code CERTIFIED_NO_CHANGES_ALLOWED} is rejected when further
+     * fields follow, since their signatures would break that certification.
+     *
+     * @param input        the document to sign
+     * @param pdfPassword  password of the document, or null
+     * @param fieldOptions one appearance per field, in signing order
+     */
+    public void signFieldsToFile(File input, String pdfPassword, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, List<AppearanceOptions> fieldOptions, CustomTSAClientBouncyCastle tsaClient, File target) throws UserCancelledPasswordEntryException {
+        if (fieldOptions == null || fieldOptions.isEmpty()) {
+            throw new IllegalArgumentException("At least one signature field is required.");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Target file cannot be null.");
+        }
+        if (fieldOptions.size() > 1
+                && fieldOptions.get(0).getCertificationLevel() == PdfSignatureAppearance.CERTIFIED_NO_CHANGES_ALLOWED) {
+            throw new IllegalArgumentException("A document certified with no changes allowed cannot be signed again; "
+                    + "certify it with form filling allowed or sign the fields separately.");
+        }
+
+        byte[] password = pdfPassword == null || pdfPassword.isEmpty() ? null : pdfPassword.getBytes();
+        File directory = target.getAbsoluteFile().getParentFile();
+        File previous = null;
+        File current = null;
+        try {
+            for (int i = 0; i < fieldOptions.size(); i++) {
+                AppearanceOptions options = fieldOptions.get(i);
+                if (i > 0 && options.getCertificationLevel() != PdfSignatureAppearance.NOT_CERTIFIED) {
+                    options = options.copy();
+                    options.setCertificationLevel(PdfSignatureAppearance.NOT_CERTIFIED);
+                }
+
+                PdfReader reader = PdfReaderFactory.open(previous == null ? input : previous, password);
+                current = File.createTempFile(".emark-", ".tmp", directory);
+                signDocument(reader, keyStoreProvider, signatureCreator, signatureFieldName, options, tsaClient, null, current);
+
+                deleteStagingFile(previous);
+                previous = current;
+                current = null;
+            }
+            FileUtils.moveAtomically(previous.toPath(), target.toPath());
+            previous = null;
+        } catch (IOException e) {
+            throw new SigningProcessException(buildDetailedMessage("Signing signature fields failed", e), e);
+        } finally {
+            deleteStagingFile(current);
+            deleteStagingFile(previous);
+        }
+    }
+
+    private static void deleteStagingFile(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            log.warn("Unable to delete staging file: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Signs once, and once more if the timestamp token did not fit the reservation: its size is only
+     * known after the document has been prepared, so the retry starts again from a duplicate of the
+     * unsigned document and reserves space for the token just received.
+     */
+    private void signDocument(PdfReader reader, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, OutputStream out, File tempFile) throws UserCancelledPasswordEntryException {
 
         if (reader == null) {
             throw new IllegalArgumentException("PdfReader cannot be null.");
         }
 
+        // Taken before stamping, which modifies the reader; it shares the reader's file, so both are closed last
+        PdfReader spare = options.isTimestampEnabled() && tsaClient != null ? new PdfReader(reader) : null;
+        try {
+            try {
+                signOnce(reader, keyStoreProvider, signatureCreator, signatureFieldName, options, tsaClient, out, tempFile,
+                        exactSignatureSize);
+                return;
+            } catch (SigningProcessException e) {
+                if (spare == null || !isReservationTooSmall(e)) throw e;
+                log.warn("Timestamp token did not fit the reserved space, signing again with a larger reservation");
+            }
+            signOnce(spare, keyStoreProvider, signatureCreator, signatureFieldName, options, tsaClient, out, tempFile,
+                    true);
+        } finally {
+            if (spare != null) spare.close();
+            reader.close();
+        }
+    }
+
+    /**
+     * @return true if {@code error} was caused by a signature container larger than the space reserved for it
+     */
+    static boolean isReservationTooSmall(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException && cause.getMessage() != null
+                    && cause.getMessage().startsWith("Not enough space")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param exactSize whether to size the reservation from the fetched revocation data and observed
+     *                  timestamp tokens rather than from the fixed estimates
+     */
+    private void signOnce(PdfReader reader, KeyStoreProvider keyStoreProvider, String signatureCreator, String signatureFieldName, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, OutputStream out, File tempFile,
+                          boolean exactSize) throws UserCancelledPasswordEntryException {
         PdfStamper stamper = null;
+        SigningMetrics.Timer timer = SigningMetrics.start();
 
-        try (ByteArrayOutputStream signedPdfOutputStream = new ByteArrayOutputStream()) {
+        try {
 
             if (options.isTimestampEnabled()) {
                 if (tsaClient == null) throw new TSAConfigurationException("TSA client is not configured.");
@@ -71,33 +242,53 @@ public class Signer {
             }
 
             // Validate certificate chain
+            long phaseStart = System.nanoTime();
             Certificate[] certChain = keyStoreProvider.getCertificateChain();
+            timer.add(SigningMetrics.Phase.CERTIFICATE_CHAIN, phaseStart);
 
-            stamper = PdfStamper.createSignature(reader, signedPdfOutputStream, '\0', null, true);
+            stamper = PdfStamper.createSignature(reader, out, '\0', tempFile, true);
             PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
 
+            phaseStart = System.nanoTime();
             SignatureAppearanceBuilder appearanceHandler = new SignatureAppearanceBuilder(keyStoreProvider, options);
             appearanceHandler.configureAppearance(signatureFieldName, appearance, signatureCreator);
 
             // Watermark
             if (options.getWatermarkImage() != null)
                 applyWatermarkToSignatureAppearance(appearance, options);
+            timer.add(SigningMetrics.Phase.APPEARANCE, phaseStart);
 
             ExternalDigest digest = new BouncyCastleDigest();
+            phaseStart = System.nanoTime();
             ExternalSignature signature = new PrivateKeySignature(
                     keyStoreProvider.getPrivateKey(), DigestAlgorithms.SHA256, keyStoreProvider.getProvider());
+            timer.add(SigningMetrics.Phase.KEYSTORE_OPEN, phaseStart);
 
             List<CrlClient> crlList = options.isLtvEnabled() ? prepareLtvComponents(certChain) : new ArrayList<>();
-            OcspClient ocspClient = options.isLtvEnabled() ? new OcspClientBouncyCastle(null) : null;
-
-            int estimatedSize = estimateSignatureSize(certChain.length, tsaClient != null && options.isTimestampEnabled(), options.isLtvEnabled());
+            OcspClient ocspClient = options.isLtvEnabled() ? new CachingOcspClient() : null;
+
+            int estimatedSize;
+            if (exactSize) {
+                // Fetch revocation data once up front so the reservation matches exactly what gets embedded
+                phaseStart = System.nanoTime();
+                Collection<byte[]> crlBytes = fetchCrls(certChain, crlList);
+                byte[] ocspBytes = fetchOcsp(certChain, ocspClient);
+                timer.add(SigningMetrics.Phase.REVOCATION, phaseStart);
+                crlList = crlBytes != null ? Collections.<CrlClient>singletonList((checkCert, url) -> crlBytes) : null;
+                ocspClient = ocspBytes != null ? (checkCert, issuerCert, url) -> ocspBytes : null;
+                estimatedSize = SignatureSizeCalculator.computeSize(certChain, signature, digest, crlBytes, ocspBytes, tsaClient);
+            } else {
+                estimatedSize = estimateSignatureSize(certChain.length, tsaClient != null && options.isTimestampEnabled(), options.isLtvEnabled());
+                crlList = timer.timed(crlList);
+                ocspClient = timer.timed(ocspClient);
+            }
+            log.info("Reserving " + estimatedSize + " bytes for signature container");
 
             MakeSignature.signDetached(
-                    appearance, digest, signature, certChain,
-                    crlList, ocspClient, tsaClient, estimatedSize, MakeSignature.CryptoStandard.CADES
+                    appearance, timer.timed(digest), timer.timed(signature), certChain,
+                    crlList, ocspClient, timer.timed(tsaClient), estimatedSize, MakeSignature.CryptoStandard.CADES
             );
-
-            return Base64.getEncoder().encodeToString(signedPdfOutputStream.toByteArray());
+            timer.finish();
 
         } catch (SignatureException e) {
             throw new UserCancelledPasswordEntryException("Signature cancelled by user.", e);
@@ -109,26 +300,30 @@ public class Signer {
         } finally {
             try {
                 if (stamper != null) stamper.close();
-                reader.close();
             } catch (Exception e) {
                 log.error("Failed to close resources" + e.getMessage(), e);
             }
         }
     }
 
-    private void applyWatermarkToSignatureAppearance(PdfSignatureAppearance appearance, AppearanceOptions options) {
+    /**
+     * Draws the watermark centred in the background layer. A copy of the image is positioned so the
+     * shared {@link AppearanceOptions} image can be used by several documents at once.
+     */
+    static void applyWatermarkToSignatureAppearance(PdfSignatureAppearance appearance, AppearanceOptions options) {
         int[] coords = options.getCoordinates();
         float rectWidth = coords[2] - coords[0]; // urx - llx
         float rectHeight = coords[3] - coords[1]; // ury - lly
 
-        options.getWatermarkImage().scaleToFit(rectWidth, rectHeight);
+        Image watermark = Image.getInstance(options.getWatermarkImage());
+        watermark.scaleToFit(rectWidth, rectHeight);
 
-        float imageWidth = options.getWatermarkImage().getScaledWidth();
-        float imageHeight = options.getWatermarkImage().getScaledHeight();
+        float imageWidth = watermark.getScaledWidth();
+        float imageHeight = watermark.getScaledHeight();
 
         float xOffset = (rectWidth - imageWidth) / 2;
         float yOffset = (rectHeight - imageHeight) / 2;
-        options.getWatermarkImage().setAbsolutePosition(xOffset, yOffset);
+        watermark.setAbsolutePosition(xOffset, yOffset);
 
         PdfTemplate background = appearance.getLayer(0); // Layer 0 = background
         PdfGState gState = new PdfGState();
@@ -137,7 +332,7 @@ public class Signer {
         background.saveState();
         background.setGState(gState);
         try {
-            background.addImage(options.getWatermarkImage());
+            background.addImage(watermark);
         } catch (DocumentException e) {
             throw new RuntimeException("Failed to add watermark to signature appearance.", e);
         }
@@ -150,9 +345,26 @@ public class Signer {
                 (withLTV ? LTV_SIZE_ESTIMATE : 0) + CMS_OVERHEAD + SAFETY_MARGIN;
     }
 
-    private List<CrlClient> prepareLtvComponents(Certificate[] certChain) {
+    /**
+     * Collects CRLs the same way {@link MakeSignature#signDetached} does: from the first
+     * certificate in the chain for which any CRL client returns data.
+     */
+    static Collection<byte[]> fetchCrls(Certificate[] certChain, List<CrlClient> crlList) {
+        Collection<byte[]> crlBytes = null;
+        for (int i = 0; crlBytes == null && i < certChain.length; i++) {
+            crlBytes = MakeSignature.processCrl(certChain[i], crlList);
+        }
+        return crlBytes;
+    }
+
+    static byte[] fetchOcsp(Certificate[] certChain, OcspClient ocspClient) {
+        if (ocspClient == null || certChain.length < 2) return null;
+        return ocspClient.getEncoded((X509Certificate) certChain[0], (X509Certificate) certChain[1], null);
+    }
+
+    static List<CrlClient> prepareLtvComponents(Certificate[] certChain) {
         List<CrlClient> crlList = new ArrayList<>();
-        crlList.add(new CrlClientOnline(certChain));
+        crlList.add(new CachingCrlClient(certChain));
         return crlList;
     }
 
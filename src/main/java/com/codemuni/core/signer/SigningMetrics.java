@@ -0,0 +1,415 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.pdf.security.CrlClient;
+import com.itextpdf.text.pdf.security.ExternalDigest;
+import com.itextpdf.text.pdf.security.ExternalSignature;
+import com.itextpdf.text.pdf.security.OcspClient;
+import com.itextpdf.text.pdf.security.TSAClient;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-phase timing of signature creation.
+ * <p>
+ * Every signature is measured with a {@link Timer}, both by {@link Signer} and, per document, by the
+ * {@link DeferredSigningPipeline}; finished timers are folded into one latency {@link Histogram} per
+ * {@link Phase}, available through {@link #getSnapshot()}. With the system property
+ * {@code emark.signing.timings=true} a one-line summary is also logged for every signature, e.g.
+ * {@code Signing timings: total=812ms chain=2ms keystore=15ms appearance=9ms revocation=0ms
+ * digest=31ms privateKey=412ms timestamp=298ms queued=0ms write=45ms bytes=3481920}.
+ */
+public final class SigningMetrics {
+
+    private static final Log log = LogFactory.getLog(SigningMetrics.class);
+
+    /** Upper bounds (inclusive, in milliseconds) of the histogram buckets; the last bucket is open. */
+    private static final long[] BUCKET_BOUNDS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+    private static final AtomicLong signatures = new AtomicLong();
+    private static final AtomicLong bytesProcessed = new AtomicLong();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new Histogram());
+        }
+    }
+
+    /**
+     * The measured phases of one signature.
+     */
+    public enum Phase {
+        /** Obtaining the certificate chain from the key store. */
+        CERTIFICATE_CHAIN("chain"),
+        /** Opening the private key (key handle lookup on tokens). */
+        KEYSTORE_OPEN("keystore"),
+        /** Building the visible appearance and watermark. */
+        APPEARANCE("appearance"),
+        /** Fetching CRLs and OCSP responses for LTV. */
+        REVOCATION("revocation"),
+        /** Hashing the signed byte ranges. */
+        DIGEST("digest"),
+        /** The private-key operation on the token or key store. */
+        PRIVATE_KEY("privateKey"),
+        /** The RFC 3161 timestamp round-trip. */
+        TIMESTAMP("timestamp"),
+        /** Waiting for a free worker or the token thread between the stages of the deferred pipeline. */
+        QUEUED("queued"),
+        /** Preparing, writing and moving the signed document, excluding the phases above. */
+        WRITE("write"),
+        /** The whole signature. */
+        TOTAL("total");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private SigningMetrics() {
+    }
+
+    /**
+     * Starts measuring a signature.
+     */
+    public static Timer start() {
+        return new Timer();
+    }
+
+    /**
+     * @return number of signatures measured since start-up
+     */
+    public static long getSignatureCount() {
+        return signatures.get();
+    }
+
+    /**
+     * @return bytes hashed for all measured signatures
+     */
+    public static long getBytesProcessed() {
+        return bytesProcessed.get();
+    }
+
+    /**
+     * @return a copy of the histogram of every phase
+     */
+    public static Map<Phase, HistogramSnapshot> getSnapshot() {
+        Map<Phase, HistogramSnapshot> snapshot = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, Histogram> entry : histograms.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return upper bounds of the histogram buckets in milliseconds; the last bucket is unbounded
+     */
+    public static long[] getBucketBoundsMillis() {
+        return BUCKET_BOUNDS_MS.clone();
+    }
+
+    private static void record(Timer timer) {
+        signatures.incrementAndGet();
+        bytesProcessed.addAndGet(timer.bytes.get());
+        for (Phase phase : Phase.values()) {
+            histograms.get(phase).record(timer.getNanos(phase) / 1_000_000L);
+        }
+        if (Boolean.getBoolean("emark.signing.timings")) {
+            log.info(timer.summary());
+        }
+    }
+
+    /**
+     * Accumulates the phase durations of a single signature. Phases may be added from several threads.
+     */
+    public static final class Timer {
+        private final long startNanos = System.nanoTime();
+        private final Map<Phase, AtomicLong> nanos = new EnumMap<>(Phase.class);
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile boolean finished;
+
+        private Timer() {
+            for (Phase phase : Phase.values()) {
+                nanos.put(phase, new AtomicLong());
+            }
+        }
+
+        /**
+         * Adds the time elapsed since {@code phaseStartNanos} (a {@link System#nanoTime()} value) to {@code phase}.
+         */
+        public void add(Phase phase, long phaseStartNanos) {
+            nanos.get(phase).addAndGet(System.nanoTime() - phaseStartNanos);
+        }
+
+        public void addBytes(long count) {
+            bytes.addAndGet(count);
+        }
+
+        public long getNanos(Phase phase) {
+            return nanos.get(phase).get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * Records the signature: the total is the time since {@link SigningMetrics#start()} and WRITE
+         * receives whatever the other phases do not account for.
+         */
+        public void finish() {
+            if (finished) return;
+            finished = true;
+
+            long total = System.nanoTime() - startNanos;
+            long accounted = 0;
+            for (Phase phase : Phase.values()) {
+                if (phase != Phase.WRITE && phase != Phase.TOTAL) {
+                    accounted += getNanos(phase);
+                }
+            }
+            nanos.get(Phase.TOTAL).set(total);
+            nanos.get(Phase.WRITE).addAndGet(Math.max(0, total - accounted - getNanos(Phase.WRITE)));
+            record(this);
+        }
+
+        String summary() {
+            StringBuilder sb = new StringBuilder("Signing timings: total=")
+                    .append(getNanos(Phase.TOTAL) / 1_000_000L).append("ms");
+            for (Phase phase : Phase.values()) {
+                if (phase != Phase.TOTAL) {
+                    sb.append(' ').append(phase.getLabel()).append('=').append(getNanos(phase) / 1_000_000L).append("ms");
+                }
+            }
+            return sb.append(" bytes=").append(getBytes()).toString();
+        }
+
+        /**
+         * Times the private-key operation of {@code signature}.
+         */
+        ExternalSignature timed(ExternalSignature signature) {
+            return new ExternalSignature() {
+                @Override
+                public String getHashAlgorithm() {
+                    return signature.getHashAlgorithm();
+                }
+
+                @Override
+                public String getEncryptionAlgorithm() {
+                    return signature.getEncryptionAlgorithm();
+                }
+
+                @Override
+                public byte[] sign(byte[] message) throws GeneralSecurityException {
+                    long start = System.nanoTime();
+                    try {
+                        return signature.sign(message);
+                    } finally {
+                        add(Phase.PRIVATE_KEY, start);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Times hashing and counts the hashed bytes of every digest created by {@code digest}.
+         */
+        ExternalDigest timed(ExternalDigest digest) {
+            return hashAlgorithm -> new TimedMessageDigest(digest.getMessageDigest(hashAlgorithm), this);
+        }
+
+        /**
+         * Times the CRL downloads of {@code crlClients}.
+         */
+        List<CrlClient> timed(List<CrlClient> crlClients) {
+            if (crlClients == null) return null;
+            List<CrlClient> timedClients = new ArrayList<>(crlClients.size());
+            for (CrlClient client : crlClients) {
+                timedClients.add((checkCert, url) -> {
+                    long start = System.nanoTime();
+                    try {
+                        return client.getEncoded(checkCert, url);
+                    } finally {
+                        add(Phase.REVOCATION, start);
+                    }
+                });
+            }
+            return timedClients;
+        }
+
+        /**
+         * Times the OCSP requests of {@code ocspClient}.
+         */
+        OcspClient timed(OcspClient ocspClient) {
+            if (ocspClient == null) return null;
+            return (checkCert, issuerCert, url) -> {
+                long start = System.nanoTime();
+                try {
+                    return ocspClient.getEncoded(checkCert, issuerCert, url);
+                } finally {
+                    add(Phase.REVOCATION, start);
+                }
+            };
+        }
+
+        /**
+         * Times the timestamp request of {@code tsaClient}.
+         */
+        TSAClient timed(TSAClient tsaClient) {
+            if (tsaClient == null) return null;
+            return new TSAClient() {
+                @Override
+                public int getTokenSizeEstimate() {
+                    return tsaClient.getTokenSizeEstimate();
+                }
+
+                @Override
+                public MessageDigest getMessageDigest() throws GeneralSecurityException {
+                    return tsaClient.getMessageDigest();
+                }
+
+                @Override
+                public byte[] getTimeStampToken(byte[] imprint) throws Exception {
+                    long start = System.nanoTime();
+                    try {
+                        return tsaClient.getTimeStampToken(imprint);
+                    } finally {
+                        add(Phase.TIMESTAMP, start);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Delegating digest that adds its hashing time and input size to a timer.
+     */
+    private static final class TimedMessageDigest extends MessageDigest {
+        private final MessageDigest delegate;
+        private final Timer timer;
+
+        TimedMessageDigest(MessageDigest delegate, Timer timer) {
+            super(delegate.getAlgorithm());
+            this.delegate = delegate;
+            this.timer = timer;
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            delegate.update(input);
+            timer.addBytes(1);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            long start = System.nanoTime();
+            delegate.update(input, offset, len);
+            timer.add(Phase.DIGEST, start);
+            timer.addBytes(len);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            return delegate.digest();
+        }
+
+        @Override
+        protected void engineReset() {
+            delegate.reset();
+        }
+
+        @Override
+        protected int engineGetDigestLength() {
+            return delegate.getDigestLength();
+        }
+    }
+
+    /**
+     * Latency histogram in milliseconds over {@link #getBucketBoundsMillis() fixed buckets}; used for
+     * the signing phases and for the TSA round-trips of {@link TsaHttpTransport}.
+     */
+    static final class Histogram {
+        private final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private long totalMillis;
+        private long maxMillis;
+
+        synchronized void record(long millis) {
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[i]) i++;
+            buckets[i]++;
+            count++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+        }
+
+        synchronized HistogramSnapshot snapshot() {
+            return new HistogramSnapshot(buckets.clone(), count, totalMillis, maxMillis);
+        }
+    }
+
+    /**
+     * Immutable view of a phase histogram.
+     */
+    public static final class HistogramSnapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long totalMillis;
+        private final long maxMillis;
+
+        HistogramSnapshot(long[] buckets, long count, long totalMillis, long maxMillis) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        /**
+         * @return counts per bucket, aligned with {@link SigningMetrics#getBucketBoundsMillis()} plus one overflow bucket
+         */
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getAverageMillis() {
+            return count > 0 ? totalMillis / count : 0;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        /**
+         * @return the upper bound of the bucket containing the given percentile (0-100), or -1 for the overflow bucket
+         */
+        public long getPercentileUpperBoundMillis(double percentile) {
+            long threshold = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= threshold && seen > 0) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : -1;
+                }
+            }
+            return 0;
+        }
+    }
+}
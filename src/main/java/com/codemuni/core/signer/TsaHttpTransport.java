@@ -0,0 +1,322 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.utils.HostCircuitBreaker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP transport for RFC 3161 timestamp requests.
+ * <p>
+ * Connections are kept alive and reused: every response body is read to the end and the stream is
+ * closed without disconnecting, which returns the socket to the JDK's keep-alive cache, so only the
+ * first request to a TSA pays the TCP/TLS handshake.
+ * <p>
+ * With several TSA URLs configured, the request is hedged: the next TSA is asked when the previous
+ * one has not answered within the latency budget (or immediately if it failed), and the first
+ * successful response wins. Per-TSA latency is recorded in {@link #getLatencyStats()}.
+ * <p>
+ * A TSA that could not be reached is skipped without a connection attempt while its
+ * {@link HostCircuitBreaker} circuit is open.
+ */
+public class TsaHttpTransport {
+
+    private static final Log log = LogFactory.getLog(TsaHttpTransport.class);
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+    private static final int MIN_KEEP_ALIVE_CONNECTIONS = 16;
+
+    private static final Map<String, SigningMetrics.Histogram> latency = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+    private static final ExecutorService requestExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "tsa-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // The JDK keeps only 5 idle connections per destination by default; batch signing needs more
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(MIN_KEEP_ALIVE_CONNECTIONS));
+        }
+    }
+
+    private final List<String> urls;
+    private final String authorization;
+    private final long hedgeDelayMs;
+
+    /**
+     * @param urls         TSA URLs in order of preference; credentials are only sent to the first
+     * @param username     basic-auth user for the primary TSA, or null
+     * @param password     basic-auth password for the primary TSA
+     * @param hedgeDelayMs how long to wait for a TSA before also asking the next one
+     */
+    public TsaHttpTransport(List<String> urls, String username, String password, long hedgeDelayMs) {
+        if (urls == null || urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one TSA URL is required.");
+        }
+        this.urls = new ArrayList<>(urls);
+        this.authorization = username != null && !username.isEmpty()
+                ? "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8))
+                : null;
+        this.hedgeDelayMs = hedgeDelayMs;
+    }
+
+    /**
+     * @return the TSA URLs in order of preference
+     */
+    public List<String> getUrls() {
+        return Collections.unmodifiableList(urls);
+    }
+
+    /**
+     * Sends the timestamp request and returns the first successful response.
+     *
+     * @param requestBytes the DER-encoded TimeStampReq
+     * @return the response and the TSA that sent it
+     * @throws IOException if every TSA failed
+     */
+    public Response post(byte[] requestBytes) throws IOException {
+        if (urls.size() == 1) {
+            return send(urls.get(0), requestBytes, authorization);
+        }
+
+        CompletionService<Response> completion = new ExecutorCompletionService<>(requestExecutor);
+        List<Future<Response>> futures = new ArrayList<>();
+        IOException lastFailure = null;
+        int next = 0;
+        int pending = 0;
+
+        try {
+            while (next < urls.size() || pending > 0) {
+                if (pending == 0) {
+                    futures.add(submit(completion, next++, requestBytes));
+                    pending++;
+                }
+
+                Future<Response> done = next < urls.size()
+                        ? completion.poll(hedgeDelayMs, TimeUnit.MILLISECONDS)
+                        : completion.take();
+
+                if (done == null) {
+                    // Latency budget exceeded; hedge with the next TSA
+                    log.info("TSA did not answer within " + hedgeDelayMs + " ms, also trying " + urls.get(next));
+                    futures.add(submit(completion, next++, requestBytes));
+                    pending++;
+                    continue;
+                }
+
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    lastFailure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for timestamp response", e);
+        } finally {
+            for (Future<Response> future : futures) {
+                future.cancel(false);
+            }
+        }
+        throw lastFailure != null ? lastFailure : new IOException("No TSA answered the timestamp request");
+    }
+
+    private Future<Response> submit(CompletionService<Response> completion, int index, byte[] requestBytes) {
+        String url = urls.get(index);
+        String auth = index == 0 ? authorization : null;
+        return completion.submit(() -> send(url, requestBytes, auth));
+    }
+
+    private static Response send(String tsaUrl, byte[] requestBytes, String authorization) throws IOException {
+        HostCircuitBreaker breaker = HostCircuitBreaker.getInstance();
+        if (!breaker.allowRequest(tsaUrl)) {
+            throw new IOException("TSA " + tsaUrl + " is unreachable; next attempt in "
+                    + breaker.getRetryAfterMillis(tsaUrl) / 1000 + "s");
+        }
+
+        long start = System.nanoTime();
+        HttpURLConnection con = null;
+        boolean answered = false;
+        try {
+            con = (HttpURLConnection) new URL(tsaUrl).openConnection();
+            con.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            con.setReadTimeout(READ_TIMEOUT_MS);
+            con.setDoInput(true);
+            con.setDoOutput(true);
+            con.setUseCaches(false);
+            con.setRequestMethod("POST");
+            con.setRequestProperty("Content-Type", "application/timestamp-query");
+            con.setRequestProperty("Content-Transfer-Encoding", "binary");
+            con.setFixedLengthStreamingMode(requestBytes.length);
+            if (authorization != null) {
+                con.setRequestProperty("Authorization", authorization);
+            }
+
+            try (OutputStream out = con.getOutputStream()) {
+                out.write(requestBytes);
+            }
+
+            int code = con.getResponseCode();
+            answered = true;
+            if (code / 100 != 2) {
+                breaker.recordSuccess(tsaUrl);
+                drain(con.getErrorStream());
+                throw new IOException("TSA " + tsaUrl + " returned HTTP " + code);
+            }
+
+            byte[] response;
+            try (InputStream in = con.getInputStream()) {
+                response = readFully(in);
+            }
+            String encoding = con.getContentEncoding();
+            if (encoding != null && encoding.equalsIgnoreCase("base64")) {
+                response = Base64.getMimeDecoder().decode(response);
+            }
+
+            record(tsaUrl, start, true);
+            breaker.recordSuccess(tsaUrl);
+            return new Response(tsaUrl, response);
+        } catch (IOException e) {
+            record(tsaUrl, start, false);
+            if (!answered) {
+                breaker.recordFailure(tsaUrl);
+            }
+            // A failed connection must not go back to the keep-alive cache
+            if (con != null) con.disconnect();
+            throw e;
+        }
+    }
+
+    private static void drain(InputStream in) {
+        if (in == null) return;
+        try (InputStream stream = in) {
+            readFully(stream);
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void record(String tsaUrl, long startNanos, boolean success) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000L;
+        latency.computeIfAbsent(tsaUrl, k -> new SigningMetrics.Histogram()).record(millis);
+        if (!success) {
+            failures.computeIfAbsent(tsaUrl, k -> new AtomicLong()).incrementAndGet();
+        }
+        log.debug("TSA " + tsaUrl + (success ? " answered in " : " failed after ") + millis + " ms");
+    }
+
+    /**
+     * @return a snapshot of the latency statistics per TSA URL
+     */
+    public static Map<String, LatencyStats> getLatencyStats() {
+        Map<String, LatencyStats> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, SigningMetrics.Histogram> entry : latency.entrySet()) {
+            AtomicLong failed = failures.get(entry.getKey());
+            snapshot.put(entry.getKey(), new LatencyStats(entry.getValue().snapshot(), failed != null ? failed.get() : 0));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * A TimeStampResp and the TSA that sent it.
+     */
+    public static final class Response {
+        private final String url;
+        private final byte[] body;
+
+        Response(String url, byte[] body) {
+            this.url = url;
+            this.body = body;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return the raw TimeStampResp bytes
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Request count, failures and latency histogram of one TSA; failed requests are included in the
+     * latency with the time until they failed.
+     */
+    public static final class LatencyStats {
+        private final SigningMetrics.HistogramSnapshot histogram;
+        private final long failures;
+
+        LatencyStats(SigningMetrics.HistogramSnapshot histogram, long failures) {
+            this.histogram = histogram;
+            this.failures = failures;
+        }
+
+        public long getRequests() {
+            return histogram.getCount();
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getAverageMillis() {
+            return histogram.getAverageMillis();
+        }
+
+        public long getMaxMillis() {
+            return histogram.getMaxMillis();
+        }
+
+        /**
+         * @return the latency histogram, with the buckets of {@link SigningMetrics#getBucketBoundsMillis()}
+         */
+        public SigningMetrics.HistogramSnapshot getHistogram() {
+            return histogram;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + getRequests() + ", failures=" + failures + ", avg=" + getAverageMillis()
+                    + "ms, max=" + getMaxMillis() + "ms";
+        }
+    }
+}
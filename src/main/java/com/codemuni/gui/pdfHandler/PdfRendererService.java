@@ -5,6 +5,7 @@ import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.PasswordDialog;
 import com.codemuni.service.SignatureFieldDetectionService;
 import com.codemuni.service.SignatureFieldDetectionService.SignatureFieldInfo;
+import com.codemuni.utils.PdfReaderFactory;
 import com.itextpdf.text.pdf.PdfReader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -16,7 +17,9 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Responsibilities:
@@ -142,6 +145,111 @@ public class PdfRendererService {
         return false;
     }
 
+    /**
+     * Re-renders only the given pages from an updated copy of the current document, e.g. after
+     * an incremental-update signature added a widget to one page. The other page images are kept.
+     * Overlays are removed and unsigned field overlays are rebuilt for the updated document.
+     *
+     * @param file        the updated document (may be saved under a new path)
+     * @param pageNumbers 1-based pages whose content changed
+     * @return false if the document could not be refreshed in place and must be rendered in full
+     */
+    public boolean refreshPages(File file, Collection<Integer> pageNumbers) {
+        if (document == null || pageNumbers == null || pageNumbers.isEmpty()) {
+            return false;
+        }
+
+        PDDocument updated = null;
+        try {
+            updated = (pdfPassword == null || pdfPassword.isEmpty())
+                    ? PDDocument.load(file)
+                    : PDDocument.load(file, pdfPassword);
+            if (updated.getNumberOfPages() != pdfPanel.getComponentCount()) {
+                log.info("Page count changed - full re-render required");
+                updated.close();
+                return false;
+            }
+            if (updated.isEncrypted()) {
+                updated.setAllSecurityToBeRemoved(true);
+            }
+
+            hideSignatureFieldOverlays();
+            hideSignedSignatureOverlays();
+            List<JLabel> pageLabels = restorePageLabels();
+
+            PDFRenderer renderer = new PDFRenderer(updated);
+            for (int pageNumber : new TreeSet<>(pageNumbers)) {
+                int pageIndex = pageNumber - 1;
+                if (pageIndex < 0 || pageIndex >= pageLabels.size() || pageLabels.get(pageIndex) == null) {
+                    continue;
+                }
+                BufferedImage image = optimizeImageForDisplay(renderer.renderImageWithDPI(pageIndex, RENDER_DPI));
+                pageLabels.get(pageIndex).setIcon(new ImageIcon(image));
+            }
+        } catch (Exception e) {
+            log.warn("Incremental refresh failed, falling back to full render: " + e.getMessage());
+            if (updated != null) {
+                try {
+                    updated.close();
+                } catch (Exception ignore) {
+                }
+            }
+            return false;
+        }
+
+        try {
+            document.close();
+        } catch (Exception e) {
+            log.warn("Failed to close previous PDF document: " + e.getMessage());
+        }
+        document = updated;
+        currentFile = file;
+
+        pdfPanel.revalidate();
+        pdfPanel.repaint();
+
+        detectUnsignedSignatureFields();
+        if (hasUnsignedSignatureFields()) {
+            showSignatureFieldOverlaysAutomatic();
+        }
+
+        log.info("Refreshed page(s) " + pageNumbers + " of " + file.getName());
+        return true;
+    }
+
+    /**
+     * Unwraps every page label from the layered pane left behind by overlays.
+     *
+     * @return the page labels by page index (null where a wrapper holds no label)
+     */
+    private List<JLabel> restorePageLabels() {
+        List<JLabel> labels = new ArrayList<>();
+        for (Component wrapper : pdfPanel.getComponents()) {
+            JLabel pageLabel = null;
+            if (wrapper instanceof JPanel) {
+                JPanel pageWrapper = (JPanel) wrapper;
+                Component pageComponent = findPageComponent(pageWrapper);
+                if (pageComponent instanceof JLayeredPane) {
+                    for (Component c : ((JLayeredPane) pageComponent).getComponents()) {
+                        if (c instanceof JLabel) {
+                            pageLabel = (JLabel) c;
+                            break;
+                        }
+                    }
+                    if (pageLabel != null) {
+                        pageWrapper.removeAll();
+                        pageWrapper.setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
+                        pageWrapper.add(pageLabel);
+                    }
+                } else if (pageComponent instanceof JLabel) {
+                    pageLabel = (JLabel) pageComponent;
+                }
+            }
+            labels.add(pageLabel);
+        }
+        return labels;
+    }
+
     public PDDocument getDocument() {
         return document;
     }
@@ -184,9 +292,7 @@ public class PdfRendererService {
         }
 
         try {
-            PdfReader reader = pdfPassword != null && !pdfPassword.isEmpty()
-                    ? new PdfReader(currentFile.getAbsolutePath(), pdfPassword.getBytes())
-                    : new PdfReader(currentFile.getAbsolutePath());
+            PdfReader reader = PdfReaderFactory.open(currentFile, pdfPassword);
 
             unsignedSignatureFields = fieldDetectionService.detectUnsignedSignatureFields(reader);
             reader.close();
@@ -16,6 +16,8 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.dnd.*;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.prefs.Preferences;
 
@@ -211,6 +213,37 @@ public class PdfViewerMain extends JFrame {
         loadAndRenderPdf(file);
     }
 
+    /**
+     * Shows a document that was just signed from the open one. Only the pages holding the new
+     * signature widgets are re-rendered; the rest of the page images are kept. Falls back to a
+     * full load if the document cannot be refreshed in place.
+     *
+     * @param file         the signed document
+     * @param changedPages 1-based pages that received a signature
+     */
+    public void showSignedPdf(File file, Collection<Integer> changedPages) {
+        if (!file.exists()) {
+            DialogUtils.showError(this, "Error", "File not found: " + file.getAbsolutePath());
+            return;
+        }
+        if (!pdfRendererService.refreshPages(file, changedPages)) {
+            renderPdfFromPath(file.getAbsolutePath());
+            return;
+        }
+
+        selectedPdfFile = file;
+        setWindowTitle(file.getAbsolutePath());
+        setLoadingState(true);
+
+        // Signing stays disabled until the new signature is verified
+        topBar.setSignButtonCertified(true);
+        topBar.setSignButtonVisible(true);
+        showPlaceholder(false);
+        pdfScrollPane.forceUpdatePageDisplay();
+
+        verifyAndUpdateSignatures(file);
+    }
+
     /* --------------------------
        Internal wiring
      --------------------------- */
@@ -406,12 +439,7 @@ public class PdfViewerMain extends JFrame {
         new Thread(() -> {
             try {
                 // Set progress listener for visual feedback - update both banner and panel
-                verificationService.setProgressListener(message ->
-                        SwingUtilities.invokeLater(() -> {
-                            verificationBanner.updateProgress(message);
-                            signaturePanel.setVerificationStatus(message);
-                        })
-                );
+                verificationService.setProgressListener(createVerificationListener(pdfFile, true));
 
                 List<SignatureVerificationService.SignatureVerificationResult> results =
                         verificationService.verifySignatures(pdfFile, pdfPassword);
@@ -427,50 +455,7 @@ public class PdfViewerMain extends JFrame {
                     // Clear status message
                     signaturePanel.setVerificationStatus("");
 
-                    if (results != null && !results.isEmpty()) {
-                        // Apply PDF viewer certification logic for Begin Sign button
-                        // Get LAST signature (most recent)
-                        SignatureVerificationService.SignatureVerificationResult lastSig = results.get(results.size() - 1);
-                        com.codemuni.model.CertificationLevel lastCertLevel = lastSig.getCertificationLevel();
-
-                        // Begin Sign button logic (PDF viewer style)
-                        boolean allowsSignatures = lastCertLevel.allowsSignatures(); // true only for NOT_CERTIFIED
-                        topBar.setSignButtonCertified(!allowsSignatures);
-
-                        if (!allowsSignatures) {
-                            // Certified - show simple message
-                            String tooltipMsg = "This document is certified. You cannot add more signatures.";
-                            topBar.setSignButtonTooltip(tooltipMsg);
-                            log.info("Signing DISABLED: " + tooltipMsg);
-                        } else {
-                            // Not certified - signing allowed
-                            topBar.setSignButtonTooltip(null);
-                            log.info("Signing ENABLED: Document allows additional signatures");
-                        }
-
-                        // PDF is signed - update signature panel and auto-open it
-                        signaturePanel.updateSignatures(results);
-                        signaturePanel.setVisible(true); // Make toggle button visible
-
-                        // Update verification banner with results
-                        verificationBanner.updateStatus(results);
-
-                        // Draw colored rectangles on PDF pages
-                        drawSignatureRectangles(results);
-
-                        log.info("Signature panel updated with " + results.size() + " signature(s)");
-                    } else {
-                        // PDF is not signed - enable signing (unsigned PDF, signing allowed)
-                        topBar.setSignButtonCertified(false);
-                        topBar.setSignButtonTooltip(null);
-
-                        // Hide signature panel and banner
-                        signaturePanel.clearSignatures();
-                        signaturePanel.setVisible(false);
-                        verificationBanner.hideBanner();
-                        log.info("No signatures found - signature panel hidden, signing enabled");
-                    }
-                    layoutOverlayComponents();
+                    showVerificationResults(results);
                 });
             } catch (Exception e) {
                 log.error("Error verifying signatures", e);
@@ -491,6 +476,115 @@ public class PdfViewerMain extends JFrame {
         }, "Signature-Verification-Thread").start();
     }
 
+    /**
+     * Shows verification results: signature panel, banner, signature rectangles and whether the
+     * document may be signed again. Must be called on the EDT.
+     */
+    private void showVerificationResults(List<SignatureVerificationService.SignatureVerificationResult> results) {
+        if (results != null && !results.isEmpty()) {
+            // Apply PDF viewer certification logic for Begin Sign button
+            // Get LAST signature (most recent)
+            SignatureVerificationService.SignatureVerificationResult lastSig = results.get(results.size() - 1);
+            com.codemuni.model.CertificationLevel lastCertLevel = lastSig.getCertificationLevel();
+
+            // Begin Sign button logic (PDF viewer style)
+            boolean allowsSignatures = lastCertLevel.allowsSignatures(); // true only for NOT_CERTIFIED
+            topBar.setSignButtonCertified(!allowsSignatures);
+
+            if (!allowsSignatures) {
+                // Certified - show simple message
+                String tooltipMsg = "This document is certified. You cannot add more signatures.";
+                topBar.setSignButtonTooltip(tooltipMsg);
+                log.info("Signing DISABLED: " + tooltipMsg);
+            } else {
+                // Not certified - signing allowed
+                topBar.setSignButtonTooltip(null);
+                log.info("Signing ENABLED: Document allows additional signatures");
+            }
+
+            // PDF is signed - update signature panel and auto-open it
+            signaturePanel.updateSignatures(results);
+            signaturePanel.setVisible(true); // Make toggle button visible
+
+            // Update verification banner with results
+            verificationBanner.updateStatus(results);
+
+            // Draw colored rectangles on PDF pages
+            drawSignatureRectangles(results);
+
+            log.info("Signature panel updated with " + results.size() + " signature(s)");
+        } else {
+            // PDF is not signed - enable signing (unsigned PDF, signing allowed)
+            topBar.setSignButtonCertified(false);
+            topBar.setSignButtonTooltip(null);
+
+            // Hide signature panel and banner
+            signaturePanel.clearSignatures();
+            signaturePanel.setVisible(false);
+            verificationBanner.hideBanner();
+            log.info("No signatures found - signature panel hidden, signing enabled");
+        }
+        layoutOverlayComponents();
+    }
+
+    /**
+     * Creates the listener reporting verification progress. Each signature is shown in the panel as soon
+     * as it has been verified; the final results replace these once the whole document is verified.
+     * Results revalidated in the background replace them again if the document is still open.
+     *
+     * @param pdfFile      the document being verified
+     * @param updateBanner whether progress messages are also shown in the verification banner
+     */
+    private SignatureVerificationService.VerificationProgressListener createVerificationListener(
+            File pdfFile, boolean updateBanner) {
+        return new SignatureVerificationService.VerificationProgressListener() {
+            private SignatureVerificationService.SignatureVerificationResult[] verified;
+
+            @Override
+            public void onProgress(String message) {
+                SwingUtilities.invokeLater(() -> {
+                    if (updateBanner) {
+                        verificationBanner.updateProgress(message);
+                    }
+                    signaturePanel.setVerificationStatus(message);
+                });
+            }
+
+            @Override
+            public void onSignatureVerified(int index, int total,
+                                            SignatureVerificationService.SignatureVerificationResult result) {
+                if (verified == null || verified.length != total) {
+                    verified = new SignatureVerificationService.SignatureVerificationResult[total];
+                }
+                verified[index] = result;
+
+                List<SignatureVerificationService.SignatureVerificationResult> partial = new ArrayList<>();
+                for (SignatureVerificationService.SignatureVerificationResult r : verified) {
+                    if (r != null) {
+                        partial.add(r);
+                    }
+                }
+                SwingUtilities.invokeLater(() -> {
+                    signaturePanel.updateSignatures(partial);
+                    signaturePanel.setVisible(true);
+                    layoutOverlayComponents();
+                });
+            }
+
+            @Override
+            public void onResultsRevalidated(List<SignatureVerificationService.SignatureVerificationResult> results) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!pdfFile.equals(selectedPdfFile)) {
+                        return; // Another document has been opened meanwhile
+                    }
+                    pdfRendererService.hideSignedSignatureOverlays();
+                    showVerificationResults(results);
+                    log.info("Signature panel updated with revalidated results");
+                });
+            }
+        };
+    }
+
     /**
      * Requirement 2: Verifies all signatures manually when user clicks verify all button.
      */
@@ -509,9 +603,7 @@ public class PdfViewerMain extends JFrame {
         new Thread(() -> {
             try {
                 // Set progress listener for visual feedback
-                verificationService.setProgressListener(message ->
-                        SwingUtilities.invokeLater(() -> signaturePanel.setVerificationStatus(message))
-                );
+                verificationService.setProgressListener(createVerificationListener(selectedPdfFile, false));
 
                 List<SignatureVerificationService.SignatureVerificationResult> results =
                         verificationService.verifySignatures(selectedPdfFile, pdfPassword);
@@ -17,6 +17,8 @@ import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Responsibilities:
@@ -474,6 +476,7 @@ public class SignModeController {
 
                         // Clear existing field name to ensure we create a new signature field
                         signerController.setExistingFieldName(null);
+                        signerController.setAdditionalFields(null);
 
                         // Set callback to reset UI state if user cancels save
                         signerController.setOnSaveCancelled(new Runnable() {
@@ -647,6 +650,7 @@ public class SignModeController {
         });
     }
     private void configureSignerForExistingField(SignatureFieldInfo fieldInfo) {
+        signerController.setAdditionalFields(askForAdditionalFields(fieldInfo));
         signerController.setExistingFieldName(fieldInfo.getFieldName());
         signerController.setPageNumber(fieldInfo.getPageNumber());
         signerController.setCoordinates(
@@ -656,4 +660,26 @@ public class SignModeController {
                 fieldInfo.getUry()
         );
     }
+
+    /**
+     * When the document has more unsigned fields, offers to sign all of them in the same operation.
+     *
+     * @return the other unsigned fields to sign, or null to sign only the clicked field
+     */
+    private List<SignatureFieldInfo> askForAdditionalFields(SignatureFieldInfo clickedField) {
+        List<SignatureFieldInfo> others = new ArrayList<>();
+        for (SignatureFieldInfo field : rendererService.getUnsignedSignatureFields()) {
+            if (!field.getFieldName().equals(clickedField.getFieldName())) {
+                others.add(field);
+            }
+        }
+        if (others.isEmpty()) {
+            return null;
+        }
+
+        boolean signAll = DialogUtils.confirmYesNo(owner, "Sign All Fields",
+                "This document has " + (others.size() + 1) + " unsigned signature fields.<br>"
+                        + "Sign all of them with the same certificate and appearance?");
+        return signAll ? others : null;
+    }
 }
@@ -854,17 +854,7 @@ public class SignaturePropertiesDialog extends JDialog {
             SwingWorker<SignatureVerificationResult, Void> worker = new SwingWorker<SignatureVerificationResult, Void>() {
                 @Override
                 protected SignatureVerificationResult doInBackground() throws Exception {
-                    SignatureVerificationService service = new SignatureVerificationService();
-                    java.util.List<SignatureVerificationResult> results =
-                        service.verifySignatures(pdfFile, pdfPassword);
-
-                    // Find our signature
-                    for (SignatureVerificationResult r : results) {
-                        if (r.getFieldName().equals(result.getFieldName())) {
-                            return r;
-                        }
-                    }
-                    return null;
+                    return VerifierHolder.SERVICE.verifySignature(pdfFile, pdfPassword, result.getFieldName());
                 }
 
                 @Override
@@ -902,6 +892,14 @@ public class SignaturePropertiesDialog extends JDialog {
         }
     }
 
+    /**
+     * Verification service shared by all re-verifications, created on first use (off the EDT).
+     * Each re-verification gets its own session, so dialogs may re-verify at the same time.
+     */
+    private static final class VerifierHolder {
+        static final SignatureVerificationService SERVICE = new SignatureVerificationService();
+    }
+
     private void exportCertificate() {
         try {
             java.security.cert.X509Certificate cert = result.getSignerCertificate();
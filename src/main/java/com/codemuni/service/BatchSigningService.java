@@ -0,0 +1,265 @@
+package com.codemuni.service;
+
+import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.core.keyStoresProvider.PKCS11KeyStoreProvider;
+import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.core.signer.CustomTSAClientBouncyCastle;
+import com.codemuni.core.signer.DeferredSigningPipeline;
+import com.codemuni.utils.AppConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Signs many PDF documents with a single key store login.
+ * <p>
+ * Documents go through a {@link DeferredSigningPipeline}: parsing, appearance generation and writing
+ * run on worker threads while the token only performs the private-key operations, one after another
+ * on a single thread. Every document is signed with the same {@link AppearanceOptions} template
+ * and written next to its name in the output directory. A failure on one document is recorded and the batch continues.
+ */
+public class BatchSigningService {
+
+    private static final Log log = LogFactory.getLog(BatchSigningService.class);
+    private static final int DEFAULT_WORKER_THREADS = 2;
+    private static final String SIGNED_SUFFIX = "_signed";
+
+    private final KeyStoreProvider provider;
+    private final int workerThreads;
+    private String pdfPassword;
+    private BatchProgressListener progressListener;
+
+    public BatchSigningService(KeyStoreProvider provider) {
+        this(provider, DEFAULT_WORKER_THREADS);
+    }
+
+    public BatchSigningService(KeyStoreProvider provider, int workerThreads) {
+        if (provider == null) {
+            throw new IllegalArgumentException("KeyStoreProvider cannot be null.");
+        }
+        this.provider = provider;
+        this.workerThreads = Math.max(1, workerThreads);
+    }
+
+    public void setPdfPassword(String pdfPassword) {
+        this.pdfPassword = pdfPassword;
+    }
+
+    public void setProgressListener(BatchProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Collects the PDF files of a directory (non-recursive), sorted by name.
+     *
+     * @param directory the directory to scan
+     * @return the PDF files found, or an empty list if the directory cannot be read
+     */
+    public static List<File> collectPdfFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.toLowerCase(Locale.ROOT).endsWith(".pdf"));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        List<File> pdfFiles = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile()) pdfFiles.add(file);
+        }
+        return pdfFiles;
+    }
+
+    /**
+     * Signs every input document and writes the results to {@code outputDirectory}.
+     *
+     * @param inputs          the documents to sign
+     * @param outputDirectory the directory receiving the signed documents
+     * @param template        appearance applied to every document
+     * @return per-file outcome and overall throughput
+     */
+    public BatchResult signAll(List<File> inputs, File outputDirectory, AppearanceOptions template) {
+        if (inputs == null || template == null) {
+            throw new IllegalArgumentException("Inputs and appearance template cannot be null.");
+        }
+        if (outputDirectory == null || !(outputDirectory.isDirectory() || outputDirectory.mkdirs())) {
+            throw new IllegalArgumentException("Output directory is not available: " + outputDirectory);
+        }
+
+        List<FileResult> results = new ArrayList<>(inputs.size());
+        CustomTSAClientBouncyCastle tsaClient = template.isTimestampEnabled() ? CustomTSAClientBouncyCastle.fromConfig() : null;
+
+        long batchStart = System.nanoTime();
+        try (DeferredSigningPipeline pipeline = new DeferredSigningPipeline(
+                provider, template, "codemuni", AppConstants.APP_NAME, tsaClient, workerThreads)) {
+
+            // Submitting blocks while the pipeline is full; results are reported as documents finish
+            AtomicInteger completedCount = new AtomicInteger();
+            List<CompletableFuture<FileResult>> pending = new ArrayList<>(inputs.size());
+            for (File input : inputs) {
+                File output = resolveOutputFile(input, outputDirectory);
+                CompletableFuture<File> signing = pipeline.submit(input, pdfPassword, output);
+                long started = System.nanoTime();
+                pending.add(signing.handle((file, error) -> {
+                    FileResult result = toFileResult(input, output, error, elapsedMillis(started));
+                    notifyFileCompleted(result, completedCount.incrementAndGet(), inputs.size());
+                    return result;
+                }));
+            }
+
+            for (CompletableFuture<FileResult> future : pending) {
+                results.add(future.join());
+            }
+        } finally {
+            if (provider instanceof PKCS11KeyStoreProvider) {
+                ((PKCS11KeyStoreProvider) provider).reset();
+            }
+        }
+
+        BatchResult batchResult = new BatchResult(results, (System.nanoTime() - batchStart) / 1_000_000L);
+        log.info(String.format("Batch signing finished: %d succeeded, %d failed, %.2f docs/s",
+                batchResult.getSucceeded(), batchResult.getFailed(), batchResult.getDocsPerSecond()));
+        return batchResult;
+    }
+
+    /**
+     * Builds the outcome of one document; the duration covers only that document's time in the pipeline.
+     */
+    private FileResult toFileResult(File input, File output, Throwable error, long durationMillis) {
+        if (error == null) {
+            return FileResult.success(input, output, durationMillis);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        log.error("Failed to sign PDF in batch: " + input.getAbsolutePath(), cause);
+        if (provider instanceof PKCS11KeyStoreProvider) {
+            ((PKCS11KeyStoreProvider) provider).invalidateOnTokenError(cause);
+        }
+        return FileResult.failure(input, cause.getMessage(), durationMillis);
+    }
+
+    private synchronized void notifyFileCompleted(FileResult result, int completed, int total) {
+        if (progressListener != null) {
+            progressListener.onFileCompleted(result, completed, total);
+        }
+    }
+
+    /**
+     * Keeps the original file name, adding a suffix when the output would overwrite the input.
+     */
+    private File resolveOutputFile(File input, File outputDirectory) {
+        File output = new File(outputDirectory, input.getName());
+        if (output.getAbsoluteFile().equals(input.getAbsoluteFile())) {
+            String name = input.getName();
+            int dot = name.lastIndexOf('.');
+            String base = dot > 0 ? name.substring(0, dot) : name;
+            output = new File(outputDirectory, base + SIGNED_SUFFIX + ".pdf");
+        }
+        return output;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Receives a callback after each document of the batch has been processed, in completion order
+     * and possibly on a pipeline thread.
+     */
+    public interface BatchProgressListener {
+        void onFileCompleted(FileResult result, int completed, int total);
+    }
+
+    /**
+     * Outcome of signing a single document.
+     */
+    public static class FileResult {
+        private final File input;
+        private final File output;
+        private final boolean success;
+        private final String errorMessage;
+        private final long durationMillis;
+
+        private FileResult(File input, File output, boolean success, String errorMessage, long durationMillis) {
+            this.input = input;
+            this.output = output;
+            this.success = success;
+            this.errorMessage = errorMessage;
+            this.durationMillis = durationMillis;
+        }
+
+        static FileResult success(File input, File output, long durationMillis) {
+            return new FileResult(input, output, true, null, durationMillis);
+        }
+
+        static FileResult failure(File input, String errorMessage, long durationMillis) {
+            return new FileResult(input, null, false, errorMessage, durationMillis);
+        }
+
+        public File getInput() {
+            return input;
+        }
+
+        public File getOutput() {
+            return output;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Aggregated outcome of a batch run.
+     */
+    public static class BatchResult {
+        private final List<FileResult> results;
+        private final long elapsedMillis;
+
+        BatchResult(List<FileResult> results, long elapsedMillis) {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public int getSucceeded() {
+            int count = 0;
+            for (FileResult result : results) {
+                if (result.isSuccess()) count++;
+            }
+            return count;
+        }
+
+        public int getFailed() {
+            return results.size() - getSucceeded();
+        }
+
+        public double getDocsPerSecond() {
+            return elapsedMillis > 0 ? getSucceeded() * 1000.0 / elapsedMillis : 0.0;
+        }
+    }
+}
@@ -12,16 +12,23 @@ import com.codemuni.core.signer.Signer;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
 import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.FileUtils;
+import com.codemuni.utils.PdfReaderFactory;
 import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.Base64;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 
 public class PdfSignerService {
@@ -36,17 +43,10 @@ public class PdfSignerService {
     public PdfSignerService() {
     }
 
-    private static Timer reRenderSignedPdfTimer(File saveFile) {
-        Timer timer = new Timer(1000, evt -> {
-            SwingUtilities.invokeLater(() -> {
-                PdfViewerMain.INSTANCE.renderPdfFromPath(saveFile.getAbsolutePath());
-                PdfViewerMain.INSTANCE.setWindowTitle(saveFile.getAbsolutePath());
-                PdfViewerMain.INSTANCE.requestFocusInWindow();
-                PdfViewerMain.INSTANCE.repaint();
-            });
-        });
-        timer.setRepeats(false);
-        return timer;
+    private static void showSignedPdf(File saveFile, Set<Integer> signedPages) {
+        PdfViewerMain.INSTANCE.showSignedPdf(saveFile, signedPages);
+        PdfViewerMain.INSTANCE.requestFocusInWindow();
+        PdfViewerMain.INSTANCE.repaint();
     }
 
     public void setProvider(KeyStoreProvider provider) {
@@ -67,28 +67,93 @@ public class PdfSignerService {
 
     public void launchSigningFlow(AppearanceOptions appearanceOptions) {
         PdfReader reader = openPdfReader(selectedFile, pdfPassword);
-        signPdfDocument(reader, provider, appearanceOptions);
+        try {
+            signAndSave(provider, Collections.singleton(appearanceOptions.getPageNumber()), signedTempFile -> new Signer().signToFile(
+                    reader, provider, "codemuni", AppConstants.APP_NAME, appearanceOptions,
+                    getTsaClient(appearanceOptions), signedTempFile));
+        } finally {
+            if (reader != null) reader.close();
+        }
+    }
+
+    /**
+     * Signs several signature fields of the selected document in one pass: one save dialog,
+     * one written file and one re-render, however many fields are signed.
+     *
+     * @param fieldOptions one appearance per field, in signing order
+     */
+    public void launchMultiFieldSigningFlow(List<AppearanceOptions> fieldOptions) {
+        List<AppearanceOptions> options = resolveCertificationLevel(fieldOptions);
+        if (options == null) {
+            log.info("Multi-field signing cancelled: no-changes certification with additional fields");
+            if (provider instanceof PKCS11KeyStoreProvider) {
+                ((PKCS11KeyStoreProvider) provider).reset();
+            }
+            if (onSaveCancelled != null) {
+                onSaveCancelled.run();
+            }
+            return;
+        }
+
+        AppearanceOptions first = options.get(0);
+        Set<Integer> signedPages = new TreeSet<>();
+        for (AppearanceOptions fieldOption : options) {
+            signedPages.add(fieldOption.getPageNumber());
+        }
+        signAndSave(provider, signedPages, signedTempFile -> new Signer().signFieldsToFile(
+                selectedFile, pdfPassword, provider, "codemuni", AppConstants.APP_NAME, options,
+                getTsaClient(first), signedTempFile));
+    }
+
+    /**
+     * The signatures of the other fields would break a "no changes allowed" certification of the first
+     * one, so the user is offered to certify with form filling allowed instead.
+     *
+     * @return the options to sign with, or null if the user declined
+     */
+    private List<AppearanceOptions> resolveCertificationLevel(List<AppearanceOptions> fieldOptions) {
+        AppearanceOptions first = fieldOptions.get(0);
+        if (fieldOptions.size() < 2
+                || first.getCertificationLevel() != PdfSignatureAppearance.CERTIFIED_NO_CHANGES_ALLOWED) {
+            return fieldOptions;
+        }
+
+        boolean downgrade = DialogUtils.confirmYesNo(PdfViewerMain.INSTANCE, "Certification Level",
+                "<html><body>"
+                        + "A document certified with <b>No changes allowed</b> cannot receive the signatures "
+                        + "of the other " + (fieldOptions.size() - 1) + " field(s); viewers would report the "
+                        + "certification as broken.<br/><br/>"
+                        + "Certify with <b>Form filling allowed</b> instead?"
+                        + "</body></html>");
+        if (!downgrade) {
+            return null;
+        }
+
+        AppearanceOptions certified = first.copy();
+        certified.setCertificationLevel(PdfSignatureAppearance.CERTIFIED_FORM_FILLING);
+        List<AppearanceOptions> resolved = new ArrayList<>(fieldOptions);
+        resolved.set(0, certified);
+        log.info("First field certified with form filling allowed instead of no changes allowed");
+        return resolved;
     }
 
     private PdfReader openPdfReader(File file, String password) {
         try {
-            if (password == null || password.isEmpty()) {
-                return new PdfReader(file.getAbsolutePath());
-            } else {
-                return new PdfReader(file.getAbsolutePath(), password.getBytes());
-            }
+            return PdfReaderFactory.open(file, password);
         } catch (IOException e) {
             log.error("Failed to open PDF file:::::::", e);
             return null;
         }
     }
 
-    private void signPdfDocument(PdfReader reader, KeyStoreProvider provider, AppearanceOptions appearanceOptions) {
+    private void signAndSave(KeyStoreProvider provider, Set<Integer> signedPages, SignAction signAction) {
+        File signedTempFile = null;
+        boolean saving = false;
         try {
 
-            CustomTSAClientBouncyCastle tsaClient = getTsaClient(appearanceOptions);
-            String signedBase64 = new Signer().sign(reader, provider, "codemuni", AppConstants.APP_NAME, appearanceOptions, tsaClient);
-            byte[] signedBytes = Base64.getDecoder().decode(signedBase64);
+            // Sign straight to disk; the signed document is moved into place once the user picks a location
+            signedTempFile = File.createTempFile("emark-signed-", ".pdf");
+            signAction.signTo(signedTempFile);
 
             File saveFile = showSaveFileDialog();
             if (saveFile == null) {
@@ -100,18 +165,16 @@ public class PdfSignerService {
                 return;
             }
 
-            Files.write(saveFile.toPath(), signedBytes);
-
-            // Render the signed PDF after 1 second delay
-            if (saveFile.exists() && saveFile.length() > 0) {
-                Timer timer = reRenderSignedPdfTimer(saveFile);
-                timer.start();
-            }
+            // Write off the EDT; the viewer is refreshed once the file is durable
+            new SaveWorker(signedTempFile, saveFile, signedPages, ConfigManager.isSyncOnSave()).execute();
+            saving = true;
 
         } catch (Exception e) {
             handleSigningException(e, provider);
         } finally {
-            reader.close();
+            if (!saving && signedTempFile != null && signedTempFile.exists() && !signedTempFile.delete()) {
+                log.warn("Unable to delete temporary signed file: " + signedTempFile.getAbsolutePath());
+            }
             if (provider instanceof PKCS11KeyStoreProvider) {
                 ((PKCS11KeyStoreProvider) provider).reset();
             }
@@ -120,6 +183,7 @@ public class PdfSignerService {
 
     private void handleSigningException(Exception e, KeyStoreProvider provider) {
         if (provider instanceof PKCS11KeyStoreProvider) {
+            ((PKCS11KeyStoreProvider) provider).invalidateOnTokenError(e);
             ((PKCS11KeyStoreProvider) provider).reset();
         }
 
@@ -195,15 +259,93 @@ public class PdfSignerService {
         }
     }
 
+    /**
+     * Moves the signed document into place in the background and shows it when the move completes.
+     * A progress dialog appears only while bytes are copied (e.g. to a network share);
+     * a rename on the same file system completes without one.
+     */
+    private static final class SaveWorker extends SwingWorker<Void, Long> {
+        private final File signedTempFile;
+        private final File saveFile;
+        private final Set<Integer> signedPages;
+        private final boolean fsync;
+        private final long totalBytes;
+        private JDialog progressDialog;
+        private JProgressBar progressBar;
+
+        SaveWorker(File signedTempFile, File saveFile, Set<Integer> signedPages, boolean fsync) {
+            this.signedTempFile = signedTempFile;
+            this.saveFile = saveFile;
+            this.signedPages = signedPages;
+            this.fsync = fsync;
+            this.totalBytes = Math.max(1, signedTempFile.length());
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            FileUtils.moveDurably(signedTempFile.toPath(), saveFile.toPath(), fsync, this::publish);
+            return null;
+        }
+
+        @Override
+        protected void process(List<Long> chunks) {
+            long written = chunks.get(chunks.size() - 1);
+            if (written >= totalBytes) return;
+            if (progressDialog == null) {
+                showProgressDialog();
+            }
+            progressBar.setValue((int) (written * 100 / totalBytes));
+        }
+
+        @Override
+        protected void done() {
+            if (progressDialog != null) {
+                progressDialog.dispose();
+            }
+            try {
+                get();
+                log.info("Signed PDF saved: " + saveFile.getAbsolutePath());
+                showSignedPdf(saveFile, signedPages);
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Failed to save signed PDF", cause);
+                DialogUtils.showExceptionDialog(PdfViewerMain.INSTANCE, "Saving signed PDF failed",
+                        cause instanceof Exception ? (Exception) cause : e);
+            } finally {
+                if (signedTempFile.exists() && !signedTempFile.delete()) {
+                    log.warn("Unable to delete temporary signed file: " + signedTempFile.getAbsolutePath());
+                }
+            }
+        }
+
+        private void showProgressDialog() {
+            progressDialog = new JDialog(PdfViewerMain.INSTANCE, "Saving Signed PDF", false);
+            progressBar = new JProgressBar(0, 100);
+            progressBar.setStringPainted(true);
+            progressBar.setPreferredSize(new Dimension(300, 20));
+
+            JPanel panel = new JPanel(new BorderLayout(10, 10));
+            panel.setBorder(BorderFactory.createEmptyBorder(20, 30, 20, 30));
+            panel.add(new JLabel("Writing " + saveFile.getName() + "..."), BorderLayout.CENTER);
+            panel.add(progressBar, BorderLayout.SOUTH);
+
+            progressDialog.add(panel);
+            progressDialog.pack();
+            progressDialog.setLocationRelativeTo(PdfViewerMain.INSTANCE);
+            progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+            progressDialog.setVisible(true);
+        }
+    }
+
+    /**
+     * Writes the signed document to the given temporary file.
+     */
+    private interface SignAction {
+        void signTo(File signedTempFile) throws Exception;
+    }
+
     private CustomTSAClientBouncyCastle getTsaClient(AppearanceOptions appearanceOptions) {
         if (!appearanceOptions.isTimestampEnabled()) return null;
-        Map<String, String> tsaConfig = ConfigManager.getTimestampServer();
-        return new CustomTSAClientBouncyCastle(
-                tsaConfig.get("url"),
-                tsaConfig.getOrDefault("username", null),
-                tsaConfig.getOrDefault("password", null),
-                8192,
-                "SHA-256"
-        );
+        return CustomTSAClientBouncyCastle.fromConfig();
     }
 }
@@ -1,7 +1,13 @@
 package com.codemuni.service;
 
+import com.codemuni.core.revocation.CrlCache;
+import com.codemuni.core.revocation.CrlIndex;
+import com.codemuni.core.revocation.RevocationStatusCache;
+import com.codemuni.utils.HostCircuitBreaker;
+import com.codemuni.utils.PdfReaderFactory;
 import com.itextpdf.text.pdf.AcroFields;
 import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.security.CertificateUtil;
 import com.itextpdf.text.pdf.security.PdfPKCS7;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -11,8 +17,19 @@ import java.io.File;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.Security;
 import java.security.cert.*;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for verifying digital signatures in PDF documents.
@@ -27,7 +44,36 @@ import java.util.*;
 public class SignatureVerificationService {
 
     private static final Log log = LogFactory.getLog(SignatureVerificationService.class);
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+    // Upper bound for concurrent signature checks; most time is spent waiting on OCSP responders
+    private static final int MAX_VERIFICATION_THREADS = 4;
+    // Overall time allowed for all OCSP lookups of one document, counted from the start of verification
+    private static final long REVOCATION_BUDGET_MS = 8000;
+    // Revocation lookups are I/O bound, so they run on their own pool rather than the verifier threads
+    private static final ExecutorService REVOCATION_EXECUTOR = Executors.newCachedThreadPool(new java.util.concurrent.ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "revocation-lookup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // Results whose revocation status came from data embedded in the signature do not depend on responders
+    private static final long EMBEDDED_REVOCATION_TTL_MS = 7 * 24 * 60 * 60 * 1000L;
+    // Results without an established revocation status are checked again soon
+    private static final long UNKNOWN_REVOCATION_TTL_MS = 10 * 60 * 1000L;
+    // id-kp-OCSPSigning: marks a certificate the issuer delegated OCSP signing to
+    private static final String OCSP_SIGNING_EKU = "1.3.6.1.5.5.7.3.9";
+    private static final long OCSP_CLOCK_SKEW_MS = 5 * 60 * 1000L;
+    // OCSP answers without nextUpdate older than this are not trusted
+    private static final long MAX_OCSP_RESPONSE_AGE_MS = 7 * 24 * 60 * 60 * 1000L;
+    private static final String CHANGED_AFTER_SIGNING = "Document was changed after signing";
+    private static final String LATER_REVISIONS_INFO =
+            "Signature is valid. Document has additional signatures or modifications after this signature.";
 
     static {
         // Register BouncyCastle provider for cryptographic operations
@@ -36,16 +82,30 @@ public class SignatureVerificationService {
 
     private final TrustStoreManager trustStoreManager;
     private VerificationProgressListener progressListener;
+    private boolean parallelVerification = true;
     // Revocation status cache for current verification session
     // Prevents redundant OCSP/CRL checks for same certificate across multiple signatures
     private Map<String, RevocationCacheEntry> revocationCache;
+    // OCSP lookups started for the current document, by certificate cache key
+    private Map<String, CompletableFuture<OCSPCheckResult>> pendingOcsp;
+    // CRL refreshes started for the current document, by distribution point URL
+    private Map<String, CompletableFuture<CrlIndex>> pendingCrl;
+    private volatile long revocationDeadline;
+    // Whether cached results with expired revocation information are returned (and revalidated later)
+    private final boolean serveExpiredResults;
+    private volatile boolean expiredResultsServed;
 
     public SignatureVerificationService() {
-        this.trustStoreManager = TrustStoreManager.getInstance();
+        this(TrustStoreManager.getInstance(), true);
         // Initialize trust store on first use
         trustStoreManager.initialize();
     }
 
+    private SignatureVerificationService(TrustStoreManager trustStoreManager, boolean serveExpiredResults) {
+        this.trustStoreManager = trustStoreManager;
+        this.serveExpiredResults = serveExpiredResults;
+    }
+
     /**
      * Sets the progress listener for verification updates.
      */
@@ -53,6 +113,14 @@ public class SignatureVerificationService {
         this.progressListener = listener;
     }
 
+    /**
+     * Enables or disables verifying the signatures of a document concurrently (enabled by default).
+     * Results are returned in revision order either way.
+     */
+    public void setParallelVerification(boolean parallelVerification) {
+        this.parallelVerification = parallelVerification;
+    }
+
     /**
      * Notifies progress listener with a message (thread-safe).
      */
@@ -62,6 +130,17 @@ public class SignatureVerificationService {
         }
     }
 
+    /**
+     * Notifies progress listener that a signature has been verified (thread-safe). The listener gets a
+     * copy: the result itself is still changed by the certification rules while the listener may be
+     * reading it on another thread.
+     */
+    private synchronized void notifySignatureVerified(int index, int total, SignatureVerificationResult result) {
+        if (progressListener != null) {
+            progressListener.onSignatureVerified(index, total, result.copy());
+        }
+    }
+
     /**
      * Resets the verification service state.
      * Should be called when loading a new PDF to ensure clean state.
@@ -72,6 +151,12 @@ public class SignatureVerificationService {
             revocationCache.clear();
             log.debug("Cleared revocation cache");
         }
+        if (pendingOcsp != null) {
+            pendingOcsp.clear();
+        }
+        if (pendingCrl != null) {
+            pendingCrl.clear();
+        }
         progressListener = null;
         log.debug("Reset verification service state");
     }
@@ -90,19 +175,12 @@ public class SignatureVerificationService {
             return results;
         }
 
-        // Initialize revocation cache for this verification session
-        // This prevents redundant OCSP/CRL checks for same certificate across multiple signatures
-        revocationCache = new HashMap<>();
-        log.info("Initialized revocation status cache for verification session");
+        startSession();
 
         PdfReader reader = null;
         try {
-            // Open PDF with password if provided
-            if (pdfPassword != null && !pdfPassword.isEmpty()) {
-                reader = new PdfReader(pdfFile.getAbsolutePath(), pdfPassword.getBytes());
-            } else {
-                reader = new PdfReader(pdfFile.getAbsolutePath());
-            }
+            // Open PDF with password if provided (partial mode: objects load on demand)
+            reader = PdfReaderFactory.open(pdfFile, pdfPassword);
 
             AcroFields acroFields = reader.getAcroFields();
             if (acroFields == null) {
@@ -116,7 +194,35 @@ public class SignatureVerificationService {
                 log.info("No signatures found in PDF");
                 return results;
             }
-            results.addAll(verifySignaturesSequential(reader, acroFields, signatureNames));
+
+            // Revisions verified before are recognised by their digest; only the others are verified
+            Map<String, String> resultKeys = resultCacheKeys(reader, acroFields, signatureNames);
+            SignatureVerificationResult[] ordered = new SignatureVerificationResult[signatureNames.size()];
+            List<String> pendingNames = new ArrayList<>();
+            List<Integer> pendingPositions = new ArrayList<>();
+            for (int i = 0; i < signatureNames.size(); i++) {
+                String signatureName = signatureNames.get(i);
+                ordered[i] = cachedResult(acroFields, signatureName, resultKeys.get(signatureName));
+                if (ordered[i] != null) {
+                    notifySignatureVerified(i, ordered.length, ordered[i]);
+                } else {
+                    pendingNames.add(signatureName);
+                    pendingPositions.add(i);
+                }
+            }
+            log.info("Reusing " + (ordered.length - pendingNames.size()) + " of " + ordered.length
+                    + " signature result(s); verifying " + pendingNames.size());
+
+            if (!pendingNames.isEmpty()) {
+                startRevocationLookups(acroFields, pendingNames);
+                List<SignatureVerificationResult> verified = parallelVerification && pendingNames.size() > 1
+                        ? verifySignaturesParallel(pdfFile, pdfPassword, pendingNames, pendingPositions, ordered.length, resultKeys)
+                        : verifySignaturesSequential(reader, acroFields, pendingNames, pendingPositions, ordered.length, resultKeys);
+                for (int i = 0; i < verified.size(); i++) {
+                    ordered[pendingPositions.get(i)] = verified.get(i);
+                }
+            }
+            results.addAll(Arrays.asList(ordered));
 
         } catch (Exception e) {
             log.error("Error reading PDF file", e);
@@ -133,15 +239,133 @@ public class SignatureVerificationService {
         // Apply PDF viewer certification rules before returning
         applyPdfViewerCertificationRules(results);
 
+        if (expiredResultsServed) {
+            revalidateInBackground(pdfFile, pdfPassword);
+        }
         return results;
     }
 
+    /**
+     * Verifies one signature of a PDF file again, e.g. when the user asks to re-verify it.
+     * <p>
+     * Only the signed revision of {@code fieldName} is hashed and only that signature is checked. The
+     * {@link VerificationResultCache} is not consulted, since a re-verification must reflect the current
+     * trust and revocation state; the fresh result replaces the cached one. Revocation statuses are still
+     * served from the revocation caches until their responders' nextUpdate. The certification rules of
+     * {@link #applyPdfViewerCertificationRules} are applied from the dictionary of the last signature,
+     * without verifying it.
+     * <p>
+     * Each call runs in its own verification session, so this method may be called from several
+     * threads at once.
+     *
+     * @param pdfFile     PDF file to verify
+     * @param pdfPassword Password for encrypted PDFs (can be null)
+     * @param fieldName   name of the signature field
+     * @return the verification result, or null if the document has no such signature
+     */
+    public SignatureVerificationResult verifySignature(File pdfFile, String pdfPassword, String fieldName) {
+        SignatureVerificationService session = new SignatureVerificationService(trustStoreManager, serveExpiredResults);
+        session.setProgressListener(progressListener);
+        return session.verifySingleSignature(pdfFile, pdfPassword, fieldName);
+    }
+
+    private SignatureVerificationResult verifySingleSignature(File pdfFile, String pdfPassword, String fieldName) {
+        if (pdfFile == null || !pdfFile.exists()) {
+            log.error("PDF file does not exist: " + pdfFile);
+            return null;
+        }
+
+        startSession();
+
+        PdfReader reader = null;
+        try {
+            reader = PdfReaderFactory.open(pdfFile, pdfPassword);
+
+            AcroFields acroFields = reader.getAcroFields();
+            List<String> signatureNames = acroFields != null ? acroFields.getSignatureNames() : Collections.<String>emptyList();
+            if (!signatureNames.contains(fieldName)) {
+                log.info("No signature named " + fieldName + " in PDF");
+                return null;
+            }
+
+            List<String> names = Collections.singletonList(fieldName);
+            String resultKey = resultCacheKeys(reader, acroFields, names).get(fieldName);
+            startRevocationLookups(acroFields, names);
+            SignatureVerificationResult result;
+            try {
+                result = verifySignature(reader, acroFields, fieldName, resultKey);
+            } catch (Exception e) {
+                log.error("Error verifying signature: " + fieldName, e);
+                result = errorResult(fieldName, e);
+            }
+
+            String lastName = signatureNames.get(signatureNames.size() - 1);
+            if (!lastName.equals(fieldName)) {
+                com.itextpdf.text.pdf.PdfDictionary lastDictionary = acroFields.getSignatureDictionary(lastName);
+                if (isCertificationSignature(lastDictionary)
+                        && com.codemuni.model.CertificationLevel.fromPValue(getCertificationLevel(lastDictionary))
+                        == com.codemuni.model.CertificationLevel.NO_CHANGES_ALLOWED) {
+                    log.info("Last signature " + lastName + " is NO_CHANGES_ALLOWED - invalidating " + fieldName);
+                    invalidateBeforeCertification(result);
+                }
+            }
+            return result;
+
+        } catch (Exception e) {
+            log.error("Error reading PDF file", e);
+            return errorResult(fieldName, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (Exception e) {
+                    log.error("Error closing PDF reader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a verification session: revocation lookups of the document share one cache and one deadline.
+     */
+    private void startSession() {
+        // Prevents redundant OCSP/CRL checks for same certificate across multiple signatures
+        revocationCache = new ConcurrentHashMap<>();
+        pendingOcsp = new ConcurrentHashMap<>();
+        pendingCrl = new ConcurrentHashMap<>();
+        revocationDeadline = System.currentTimeMillis() + REVOCATION_BUDGET_MS;
+        expiredResultsServed = false;
+        log.info("Initialized revocation status cache for verification session");
+    }
+
+    /**
+     * Verifies the document again on a background thread, ignoring cached results whose revocation
+     * information has expired, and hands the fresh results to the current progress listener.
+     */
+    private void revalidateInBackground(File pdfFile, String pdfPassword) {
+        VerificationProgressListener listener = progressListener;
+        log.info("Revalidating cached results with expired revocation information in the background");
+        REVOCATION_EXECUTOR.execute(() -> {
+            SignatureVerificationService revalidator = new SignatureVerificationService(trustStoreManager, false);
+            revalidator.setParallelVerification(parallelVerification);
+            List<SignatureVerificationResult> fresh = revalidator.verifySignatures(pdfFile, pdfPassword);
+            if (listener != null && !fresh.isEmpty()) {
+                listener.onResultsRevalidated(fresh);
+            }
+        });
+    }
+
     /**
      * Verifies signatures sequentially (one-by-one).
      * Used for single signature documents or when parallel verification is disabled.
+     *
+     * @param positions  position of each signature among all signatures of the document
+     * @param total      number of signatures in the document
+     * @param resultKeys result cache keys by signature name
      */
     private List<SignatureVerificationResult> verifySignaturesSequential(
-            PdfReader reader, AcroFields acroFields, List<String> signatureNames) {
+            PdfReader reader, AcroFields acroFields, List<String> signatureNames,
+            List<Integer> positions, int total, Map<String, String> resultKeys) {
 
         List<SignatureVerificationResult> results = new ArrayList<>();
 
@@ -149,20 +373,99 @@ public class SignatureVerificationService {
             String signatureName = signatureNames.get(i);
             try {
                 notifyProgress("Verifying signature " + (i + 1) + " of " + signatureNames.size() + "...");
-                SignatureVerificationResult result = verifySignature(reader, acroFields, signatureName);
+                SignatureVerificationResult result = verifySignature(reader, acroFields, signatureName,
+                        resultKeys.get(signatureName));
                 results.add(result);
             } catch (Exception e) {
                 log.error("Error verifying signature: " + signatureName, e);
-                SignatureVerificationResult errorResult = new SignatureVerificationResult(
-                        signatureName, "", null, "", "", "");
-                errorResult.addVerificationError("Failed to verify signature: " + e.getMessage());
-                results.add(errorResult);
+                results.add(errorResult(signatureName, e));
             }
+            notifySignatureVerified(positions.get(i), total, results.get(i));
         }
 
         return results;
     }
 
+    /**
+     * Verifies signatures concurrently on a bounded pool.
+     * PdfReader is not thread-safe, so every worker thread opens its own reader of the document
+     * (cheap: readers are memory-mapped and partial). Results keep the order of {@code signatureNames}.
+     *
+     * @param positions  position of each signature among all signatures of the document
+     * @param total      number of signatures in the document
+     * @param resultKeys result cache keys by signature name
+     */
+    private List<SignatureVerificationResult> verifySignaturesParallel(
+            File pdfFile, String pdfPassword, List<String> signatureNames,
+            List<Integer> positions, int total, Map<String, String> resultKeys) {
+
+        int threads = Math.min(signatureNames.size(), MAX_VERIFICATION_THREADS);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "signature-verifier-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Thread, PdfReader> readers = new ConcurrentHashMap<>();
+        AtomicInteger completed = new AtomicInteger();
+        log.info("Verifying " + signatureNames.size() + " signatures on " + threads + " threads");
+
+        try {
+            List<Future<SignatureVerificationResult>> futures = new ArrayList<>(signatureNames.size());
+            for (int i = 0; i < signatureNames.size(); i++) {
+                String signatureName = signatureNames.get(i);
+                int position = positions.get(i);
+                futures.add(executor.submit(() -> {
+                    PdfReader reader = readers.get(Thread.currentThread());
+                    if (reader == null) {
+                        reader = PdfReaderFactory.open(pdfFile, pdfPassword);
+                        readers.put(Thread.currentThread(), reader);
+                    }
+                    SignatureVerificationResult result = verifySignature(reader, reader.getAcroFields(), signatureName,
+                            resultKeys.get(signatureName));
+                    notifyProgress("Verified signature " + completed.incrementAndGet() + " of " + signatureNames.size() + "...");
+                    notifySignatureVerified(position, total, result);
+                    return result;
+                }));
+            }
+
+            List<SignatureVerificationResult> results = new ArrayList<>(signatureNames.size());
+            for (int i = 0; i < futures.size(); i++) {
+                String signatureName = signatureNames.get(i);
+                try {
+                    results.add(futures.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(errorResult(signatureName, e));
+                } catch (ExecutionException e) {
+                    log.error("Error verifying signature: " + signatureName, e.getCause());
+                    results.add(errorResult(signatureName, e.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            for (PdfReader reader : readers.values()) {
+                try {
+                    reader.close();
+                } catch (Exception e) {
+                    log.error("Error closing PDF reader", e);
+                }
+            }
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return DATE_FORMAT.format(date.toInstant());
+    }
+
+    private static SignatureVerificationResult errorResult(String signatureName, Throwable cause) {
+        SignatureVerificationResult errorResult = new SignatureVerificationResult(
+                signatureName, "", null, "", "", "");
+        errorResult.addVerificationError("Failed to verify signature: " + cause.getMessage());
+        return errorResult;
+    }
+
     /**
      * Applies PDF viewer verification rules for certification levels.
      * This method modifies verification results based on the certification status
@@ -196,11 +499,7 @@ public class SignatureVerificationService {
             for (int i = 0; i < results.size() - 1; i++) {
                 SignatureVerificationResult prevSig = results.get(i);
 
-                // Mark as invalid with specific error
-                prevSig.setDocumentIntact(false);
-                prevSig.addVerificationError(
-                        "Document was changed after signing. This signature is no longer valid."
-                );
+                invalidateBeforeCertification(prevSig);
 
                 log.info("  [" + i + "] " + prevSig.getFieldName() + " → INVALIDATED");
             }
@@ -264,10 +563,169 @@ public class SignatureVerificationService {
         log.info("=== PDF Viewer Certification Rules Applied ===");
     }
 
+    /**
+     * Marks a signature made before a NO_CHANGES_ALLOWED certification signature as invalid.
+     */
+    private static void invalidateBeforeCertification(SignatureVerificationResult result) {
+        result.setDocumentIntact(false);
+        result.addVerificationError("Document was changed after signing. This signature is no longer valid.");
+    }
+
+    /**
+     * Returns the cached result of a signature whose signed revision has been verified before against
+     * the same trust store, adjusted to the current document.
+     *
+     * @param resultKey the signature's result cache key, or null if it could not be computed
+     * @return the result, or null if the signature has to be verified
+     */
+    private SignatureVerificationResult cachedResult(AcroFields acroFields, String signatureName, String resultKey) {
+        if (resultKey == null) {
+            return null;
+        }
+        VerificationResultCache.Entry cached = VerificationResultCache.getInstance().get(resultKey);
+        if (cached == null || (cached.isExpired() && !serveExpiredResults)) {
+            return null;
+        }
+
+        log.info("Using cached verification result for " + signatureName
+                + (cached.isExpired() ? " (revocation information expired)" : ""));
+        if (cached.isExpired()) {
+            expiredResultsServed = true;
+        }
+        SignatureVerificationResult result = cached.getResult();
+        applyRevisionContext(result, acroFields.getRevision(signatureName), acroFields.getTotalRevisions(),
+                acroFields.signatureCoversWholeDocument(signatureName));
+        return result;
+    }
+
+    /**
+     * Verifies a single signature in the PDF and remembers the result under {@code resultKey}.
+     */
+    private SignatureVerificationResult verifySignature(PdfReader reader, AcroFields acroFields, String signatureName,
+                                                        String resultKey) {
+        SignatureVerificationResult result = verifySignatureUncached(reader, acroFields, signatureName);
+        if (resultKey != null && result.getSignerCertificate() != null) {
+            VerificationResultCache.getInstance().put(resultKey, result, resultExpiry(result));
+        }
+        return result;
+    }
+
+    /**
+     * Computes the result cache keys of all signatures: a SHA-256 digest of the file from its start to
+     * the end of each signature's byte range (the signed bytes plus the signature itself) combined with
+     * the trust-store version.
+     * <p>
+     * Revisions are nested prefixes of the file, so a single digest runs over the file once and is
+     * cloned at the end of every signature's byte range: each byte is hashed once however many
+     * revisions the document has.
+     *
+     * @return keys by signature name; signatures whose byte range cannot be read are missing
+     */
+    private Map<String, String> resultCacheKeys(PdfReader reader, AcroFields acroFields, List<String> signatureNames) {
+        Map<String, String> keys = new HashMap<>();
+        TreeMap<Long, List<String>> namesByEnd = new TreeMap<>();
+        for (String signatureName : signatureNames) {
+            com.itextpdf.text.pdf.PdfDictionary dictionary = acroFields.getSignatureDictionary(signatureName);
+            com.itextpdf.text.pdf.PdfArray byteRange = dictionary != null
+                    ? dictionary.getAsArray(com.itextpdf.text.pdf.PdfName.BYTERANGE) : null;
+            if (byteRange == null || byteRange.size() < 2 || byteRange.size() % 2 != 0) {
+                continue;
+            }
+            long end = byteRange.getAsNumber(byteRange.size() - 2).longValue()
+                    + byteRange.getAsNumber(byteRange.size() - 1).longValue();
+            namesByEnd.computeIfAbsent(end, e -> new ArrayList<>()).add(signatureName);
+        }
+        if (namesByEnd.isEmpty()) {
+            return keys;
+        }
+
+        com.itextpdf.text.io.RandomAccessSource source = null;
+        try {
+            String trustVersion = trustStoreManager.getVersion();
+            java.security.MessageDigest sha256 = java.security.MessageDigest.getInstance("SHA-256");
+            source = reader.getSafeFile().createSourceView();
+            byte[] buffer = new byte[64 * 1024];
+            long position = 0;
+            for (Map.Entry<Long, List<String>> revision : namesByEnd.entrySet()) {
+                long end = revision.getKey();
+                if (end > source.length()) {
+                    break;
+                }
+                while (position < end) {
+                    int read = source.get(position, buffer, 0, (int) Math.min(buffer.length, end - position));
+                    if (read <= 0) {
+                        return keys;
+                    }
+                    sha256.update(buffer, 0, read);
+                    position += read;
+                }
+                // Byte ranges ending at the same offset cannot both be genuine; leave them uncached
+                if (revision.getValue().size() == 1) {
+                    keys.put(revision.getValue().get(0), VerificationResultCache.key(
+                            ((java.security.MessageDigest) sha256.clone()).digest(), trustVersion));
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not compute result cache keys", e);
+        } finally {
+            if (source != null) {
+                try {
+                    source.close();
+                } catch (java.io.IOException ignore) {
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns until when a result may be reused without revalidation: as long as the revocation status
+     * it relies on is current, and never beyond the expiry of the signer certificate.
+     */
+    private static long resultExpiry(SignatureVerificationResult result) {
+        long now = System.currentTimeMillis();
+        X509Certificate signerCert = result.getSignerCertificate();
+        RevocationStatusCache.Entry known = RevocationStatusCache.getInstance().get(signerCert);
+
+        long expiresAt;
+        if (known != null) {
+            expiresAt = known.getExpiresAt().getTime();
+        } else if (result.getRevocationStatus() != null && result.getRevocationStatus().contains("Embedded")) {
+            expiresAt = now + EMBEDDED_REVOCATION_TTL_MS;
+        } else {
+            expiresAt = now + UNKNOWN_REVOCATION_TTL_MS;
+        }
+        return Math.min(expiresAt, signerCert.getNotAfter().getTime());
+    }
+
+    /**
+     * Re-applies the parts of a cached result that depend on the rest of the document: the revision
+     * numbers and whether the document was changed after signing (see {@link #verifyDocumentIntegrity}).
+     */
+    private static void applyRevisionContext(SignatureVerificationResult result, int revision, int totalRevisions,
+                                             boolean coversWholeDocument) {
+        result.verificationErrors.remove(CHANGED_AFTER_SIGNING);
+        result.verificationInfo.remove(LATER_REVISIONS_INFO);
+        result.setRevision(revision);
+        result.setTotalRevisions(totalRevisions);
+        result.setCoversWholeDocument(revision == totalRevisions);
+
+        boolean documentIntact = result.isSignatureValid() && (revision != totalRevisions || coversWholeDocument);
+        result.setDocumentIntact(documentIntact);
+        if (!documentIntact) {
+            result.verificationErrors.add(0, CHANGED_AFTER_SIGNING);
+        } else if (revision < totalRevisions) {
+            result.verificationInfo.add(0, LATER_REVISIONS_INFO);
+        }
+    }
+
     /**
      * Verifies a single signature in the PDF.
      */
-    private SignatureVerificationResult verifySignature(PdfReader reader, AcroFields acroFields, String signatureName) {
+    private SignatureVerificationResult verifySignatureUncached(PdfReader reader, AcroFields acroFields, String signatureName) {
+        // Parse the CMS and hash the signed byte range once; every step below works on this context
+        ParsedSignature parsed = new ParsedSignature(acroFields, signatureName);
+
         // Extract signature metadata first
         String signerName = "";
         Date signDate = null;
@@ -276,7 +734,7 @@ public class SignatureVerificationService {
         String contactInfo = "";
 
         try {
-            PdfPKCS7 pkcs7Temp = acroFields.verifySignature(signatureName);
+            PdfPKCS7 pkcs7Temp = parsed.pkcs7;
             if (pkcs7Temp != null) {
                 // Extract signer name from certificate
                 if (pkcs7Temp.getSigningCertificate() != null) {
@@ -289,7 +747,7 @@ public class SignatureVerificationService {
                 location = pkcs7Temp.getLocation();
                 // Contact info is not directly available in PdfPKCS7, extract from dictionary
                 try {
-                    com.itextpdf.text.pdf.PdfDictionary sigDict = acroFields.getSignatureDictionary(signatureName);
+                    com.itextpdf.text.pdf.PdfDictionary sigDict = parsed.dictionary;
                     if (sigDict != null) {
                         com.itextpdf.text.pdf.PdfString contactStr = sigDict.getAsString(com.itextpdf.text.pdf.PdfName.CONTACTINFO);
                         if (contactStr != null) {
@@ -308,30 +766,32 @@ public class SignatureVerificationService {
                 signatureName, signerName, signDate, reason, location, contactInfo);
 
         try {
-            // Get signature dictionary
-            PdfPKCS7 pkcs7 = acroFields.verifySignature(signatureName);
+            if (parsed.parseError != null) {
+                throw parsed.parseError;
+            }
+            PdfPKCS7 pkcs7 = parsed.pkcs7;
             if (pkcs7 == null) {
                 result.addVerificationError("Unable to extract signature data");
                 return result;
             }
 
             // Get revision information first
-            int revision = acroFields.getRevision(signatureName);
-            int totalRevisions = acroFields.getTotalRevisions();
+            int revision = parsed.revision;
+            int totalRevisions = parsed.totalRevisions;
             result.setRevision(revision);
             result.setTotalRevisions(totalRevisions);
             result.setCoversWholeDocument(revision == totalRevisions);
 
             // 1. DOCUMENT INTEGRITY CHECK (PDF viewer-style)
             notifyProgress("Checking document integrity...");
-            boolean documentIntact = verifyDocumentIntegrity(acroFields, signatureName, revision, totalRevisions, pkcs7);
+            boolean documentIntact = verifyDocumentIntegrity(parsed);
             result.setDocumentIntact(documentIntact);
 
             if (!documentIntact) {
-                result.addVerificationError("Document was changed after signing");
+                result.addVerificationError(CHANGED_AFTER_SIGNING);
             } else if (revision < totalRevisions) {
                 // Signature is valid but not the last one - this is informational
-                result.addVerificationInfo("Signature is valid. Document has additional signatures or modifications after this signature.");
+                result.addVerificationInfo(LATER_REVISIONS_INFO);
             }
 
             // 2. SIGNATURE VALIDITY CHECK
@@ -381,9 +841,9 @@ public class SignatureVerificationService {
                         certificateValidAtSigningTime = true;
                         result.setCertificateValid(true);
                         log.info("Certificate was valid at signing time (" + timeSource + "): " +
-                                DATE_FORMAT.format(effectiveSigningTime));
+                                formatDate(effectiveSigningTime));
                         result.addVerificationInfo("Certificate was valid at signing time (" +
-                                timeSource + ": " + DATE_FORMAT.format(effectiveSigningTime) + ")");
+                                timeSource + ": " + formatDate(effectiveSigningTime) + ")");
 
                         // SECONDARY CHECK: Certificate validity at current time (informational only)
                         try {
@@ -408,7 +868,7 @@ public class SignatureVerificationService {
                     result.setCertificateValid(false);
                     if (effectiveSigningTime != null) {
                         result.addVerificationError("Certificate was expired at signing time (" +
-                                DATE_FORMAT.format(effectiveSigningTime) + ")");
+                                formatDate(effectiveSigningTime) + ")");
                         log.error("Certificate was EXPIRED at signing time - signature INVALID");
                     } else {
                         result.addVerificationError("Certificate has expired");
@@ -417,7 +877,7 @@ public class SignatureVerificationService {
                     result.setCertificateValid(false);
                     if (effectiveSigningTime != null) {
                         result.addVerificationError("Certificate was not yet valid at signing time (" +
-                                DATE_FORMAT.format(effectiveSigningTime) + ")");
+                                formatDate(effectiveSigningTime) + ")");
                         log.error("Certificate was NOT YET VALID at signing time - signature INVALID");
                     } else {
                         result.addVerificationError("Certificate is not yet valid");
@@ -662,7 +1122,7 @@ public class SignatureVerificationService {
 
                         // Timestamp proves exact signing time
                         result.addVerificationInfo("Signing time verified by trusted timestamp: " +
-                                DATE_FORMAT.format(pkcs7.getTimeStampDate().getTime()));
+                                formatDate(pkcs7.getTimeStampDate().getTime()));
                     } else {
                         result.setTimestampValid(false);
                         result.addVerificationError("Timestamp verification failed: " + tsResult.errorMessage);
@@ -730,11 +1190,11 @@ public class SignatureVerificationService {
 
             // 10. CERTIFICATION LEVEL DETECTION (PDF viewer style)
             log.info("Detecting certification level for signature: " + signatureName);
-            boolean isCert = isCertificationSignature(acroFields, signatureName);
+            boolean isCert = parsed.certification;
             result.setCertificationSignature(isCert);
 
             if (isCert) {
-                int pValue = getCertificationLevel(acroFields, signatureName);
+                int pValue = parsed.certificationP;
                 com.codemuni.model.CertificationLevel certLevel =
                         com.codemuni.model.CertificationLevel.fromPValue(pValue);
                 result.setCertificationLevel(certLevel);
@@ -1500,8 +1960,8 @@ public class SignatureVerificationService {
                                         result.setCertificateRevoked(true);
                                         result.addVerificationError("Certificate was revoked BEFORE the document was signed (embedded CRL)");
                                         log.error("Embedded CRL shows cert revoked BEFORE signing: " +
-                                                "Revoked: " + DATE_FORMAT.format(revocationTime) +
-                                                ", Signed: " + DATE_FORMAT.format(effectiveSigningTime));
+                                                "Revoked: " + formatDate(revocationTime) +
+                                                ", Signed: " + formatDate(effectiveSigningTime));
 
                                         // Cache the result
                                         revocationCache.put(cacheKey, new RevocationCacheEntry(
@@ -1566,6 +2026,13 @@ public class SignatureVerificationService {
                 log.warn("Error validating embedded CRL: " + e.getMessage(), e);
             }
 
+            // Status remembered from an earlier verification, valid until the responder's nextUpdate
+            RevocationStatusCache.Entry known = RevocationStatusCache.getInstance().get(cert);
+            if (known != null) {
+                applyKnownRevocationStatus(known, result, signDate, cacheKey);
+                return;
+            }
+
             // Method 3: Perform live OCSP check
             // certSerial and certSubject already defined at the start of this method
             log.info("OCSP: Performing live check for cert [" + certSerial + "] " + certSubject);
@@ -1578,46 +2045,23 @@ public class SignatureVerificationService {
                 X509Certificate issuerCert = findIssuerCertificate(cert, certs);
 
                 if (issuerCert != null) {
-                    // Retry logic for OCSP network failures (max 3 attempts)
-                    int maxRetries = 3;
+                    // Usually started by startRevocationLookups already; wait no longer than the document's revocation budget
                     OCSPCheckResult ocspResult = null;
                     SignatureVerificationException lastException = null;
-
-                    for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                        try {
-                            if (attempt > 1) {
-                                log.info("OCSP: Retry attempt " + attempt + " of " + maxRetries + " for cert [" + certSerial + "]");
-                            } else {
-                                log.info("OCSP: Contacting server for cert [" + certSerial + "]...");
-                            }
-
-                            ocspResult = performLiveOCSPCheck(cert, issuerCert, ocspUrl);
-
-                            // Success - break out of retry loop
-                            log.info("OCSP: Request successful on attempt " + attempt);
-                            lastException = null;
-                            break;
-
-                        } catch (SignatureVerificationException ocspEx) {
-                            lastException = ocspEx;
-
-                            if (ocspEx.isNetworkError() && attempt < maxRetries) {
-                                // Network error - retry with exponential backoff
-                                long waitTime = (long) (1000 * Math.pow(2, attempt - 1)); // 1s, 2s, 4s
-                                log.warn("OCSP: Network error on attempt " + attempt + " - retrying after " + waitTime + "ms");
-
-                                try {
-                                    Thread.sleep(waitTime);
-                                } catch (InterruptedException ie) {
-                                    Thread.currentThread().interrupt();
-                                    break;
-                                }
-                            } else {
-                                // Non-network error or final retry - don't retry
-                                log.warn("OCSP: Failed on attempt " + attempt + " - " + ocspEx.getMessage());
-                                break;
-                            }
-                        }
+                    boolean timedOut = false;
+                    try {
+                        long remaining = Math.max(0, revocationDeadline - System.currentTimeMillis());
+                        ocspResult = lookupOcsp(cert, issuerCert, ocspUrl, cacheKey).get(remaining, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        timedOut = true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        timedOut = true;
+                    } catch (ExecutionException e) {
+                        lastException = e.getCause() instanceof SignatureVerificationException
+                                ? (SignatureVerificationException) e.getCause()
+                                : new SignatureVerificationException(SignatureVerificationException.ErrorType.OCSP_FAILED,
+                                String.valueOf(e.getCause().getMessage()), e.getCause());
                     }
 
                     // Check if OCSP check was successful
@@ -1642,8 +2086,8 @@ public class SignatureVerificationService {
                                     actuallyRevoked = true;
                                     status = "Revoked before signing";
                                     log.error("OCSP: Certificate was REVOKED BEFORE signing! " +
-                                            "Revoked: " + DATE_FORMAT.format(revocationTime) +
-                                            ", Signed: " + DATE_FORMAT.format(effectiveSigningTime));
+                                            "Revoked: " + formatDate(revocationTime) +
+                                            ", Signed: " + formatDate(effectiveSigningTime));
                                     result.addVerificationError("Certificate was revoked BEFORE the document was signed");
                                 } else {
                                     // Certificate was revoked AFTER signing
@@ -1653,15 +2097,15 @@ public class SignatureVerificationService {
                                         actuallyRevoked = false;
                                         status = "Valid (Revoked after signing, has timestamp)";
                                         log.info("OCSP: Certificate revoked AFTER signing, but signature has valid timestamp → VALID. " +
-                                                "Revoked: " + DATE_FORMAT.format(revocationTime) +
-                                                ", Signed: " + DATE_FORMAT.format(effectiveSigningTime));
+                                                "Revoked: " + formatDate(revocationTime) +
+                                                ", Signed: " + formatDate(effectiveSigningTime));
                                         result.addVerificationInfo("Certificate was revoked after signing, but signature has valid timestamp proving it was created when certificate was valid");
                                     } else {
                                         // No timestamp - cannot prove when signature was created
                                         actuallyRevoked = true;
                                         status = "Revoked (no timestamp to prove signing time)";
                                         log.warn("OCSP: Certificate revoked AFTER signing, but NO timestamp to prove signing time → INVALID. " +
-                                                "Revoked: " + DATE_FORMAT.format(revocationTime));
+                                                "Revoked: " + formatDate(revocationTime));
                                         result.addVerificationError("Certificate has been revoked and signature lacks timestamp to prove it was created before revocation");
                                     }
                                 }
@@ -1697,8 +2141,12 @@ public class SignatureVerificationService {
 
                         return;
                     } else if (lastException != null) {
-                        // All retry attempts failed
-                        log.warn("OCSP: All " + maxRetries + " attempts failed for cert [" + certSerial + "] " + certSubject + " - " + lastException.getMessage());
+                        // The responder could not be asked or gave no usable answer
+                        log.warn("OCSP: Check failed for cert [" + certSerial + "] " + certSubject + " - " + lastException.getMessage());
+
+                        if (checkCachedCrl(cert, pkcs7, result, signDate, cacheKey)) {
+                            return;
+                        }
 
                         String status;
                         if (lastException.isNetworkError()) {
@@ -1715,10 +2163,28 @@ public class SignatureVerificationService {
                                 status, false, null, "Live OCSP (Failed)"));
                         log.info("Cached revocation check failure for future signatures with same certificate");
                         return;
+                    } else if (timedOut) {
+                        // Late answers are not waited for; they still reach the persistent cache
+                        log.warn("OCSP: No answer within the revocation budget for cert [" + certSerial + "] " + certSubject);
+                        result.addVerificationInfo("The OCSP responder did not answer in time");
+                        // The CRL was refreshed concurrently and may already be available
+                        if (checkCachedCrl(cert, pkcs7, result, signDate, cacheKey)) {
+                            return;
+                        }
+                        String status = "Validity Unknown (Timed Out)";
+                        result.setRevocationStatus(status);
+                        revocationCache.put(cacheKey, new RevocationCacheEntry(
+                                status, false, null, "Live OCSP (Timed Out)"));
+                        return;
                     }
                 }
             }
 
+            // Method 4: CRL from the distribution point (shared on-disk cache)
+            if (checkCachedCrl(cert, pkcs7, result, signDate, cacheKey)) {
+                return;
+            }
+
             // No OCSP URL found - this is normal for some certificates
             // Adobe Reader also accepts this as valid (just can't verify revocation)
             result.setRevocationStatus("Validity Unknown");
@@ -1736,6 +2202,139 @@ public class SignatureVerificationService {
         }
     }
 
+    /**
+     * Checks the certificate against the CRL of its distribution point, served from the shared
+     * {@link CrlCache} so a CRL is downloaded at most once per validity period. The refresh runs on
+     * the revocation executor (usually started by {@link #startRevocationLookups}) and is waited for
+     * no longer than the document's revocation budget.
+     *
+     * @return true if a revocation status was determined and stored in the result
+     */
+    private boolean checkCachedCrl(X509Certificate cert, PdfPKCS7 pkcs7, SignatureVerificationResult result,
+                                   Date signDate, String cacheKey) {
+        try {
+            String crlUrl = CertificateUtil.getCRLURL(cert);
+            if (crlUrl == null) return false;
+
+            // A CRL whose signature cannot be checked proves nothing (it may come over plain HTTP)
+            X509Certificate issuerCert = findIssuerCertificate(cert, pkcs7.getCertificates());
+            if (issuerCert == null) {
+                log.info("CRL: issuer certificate not available, cannot authenticate CRL for cert ["
+                        + cert.getSerialNumber() + "]");
+                return false;
+            }
+
+            // Signature is verified when the index is built; lookups are a binary search over revoked serials
+            CrlIndex crl;
+            try {
+                long remaining = Math.max(0, revocationDeadline - System.currentTimeMillis());
+                crl = lookupCrl(crlUrl, issuerCert).get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The download goes on and reaches the CRL cache for later verifications
+                String status = "Validity Unknown (Timed Out)";
+                result.setRevocationStatus(status);
+                result.addVerificationInfo("Revocation status could not be verified: the CRL was not downloaded in time");
+                revocationCache.put(cacheKey, new RevocationCacheEntry(status, false, null, "CRL (Timed Out)"));
+                log.warn("CRL: No CRL within the revocation budget for cert [" + cert.getSerialNumber() + "] from " + crlUrl);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (crl == null || !crl.getIssuer().equals(cert.getIssuerX500Principal())) {
+                return false;
+            }
+
+            Date revocationTime = crl.getRevocationTime(cert.getSerialNumber());
+            boolean listed = revocationTime != null;
+            // The cache serves the last known CRL while the server is unreachable; past its nextUpdate
+            // it still proves a revocation, but no longer that the certificate is not revoked
+            boolean stale = crl.getNextUpdate() != null && crl.getNextUpdate().getTime() <= System.currentTimeMillis();
+            String status;
+            boolean actuallyRevoked;
+
+            if (!listed && stale) {
+                status = "Validity Unknown (stale CRL)";
+                result.setRevocationStatus(status);
+                result.addVerificationInfo("Revocation status could not be verified: the CRL expired on "
+                        + formatDate(crl.getNextUpdate()) + " and no newer one could be downloaded");
+                revocationCache.put(cacheKey, new RevocationCacheEntry(status, false, null, "CRL (Stale)"));
+                log.info("CRL: stale CRL for cert [" + cert.getSerialNumber() + "], next update was " + crl.getNextUpdate());
+                return true;
+            } else if (!listed) {
+                status = "Valid (CRL)";
+                actuallyRevoked = false;
+                result.addVerificationInfo("Revocation checked via CRL - certificate is valid");
+            } else {
+                Date effectiveSigningTime = result.getTimestampDate() != null ? result.getTimestampDate() : signDate;
+                if (revocationTime != null && effectiveSigningTime != null
+                        && !revocationTime.before(effectiveSigningTime) && result.isTimestampValid()) {
+                    status = "Valid (Revoked after signing, has timestamp)";
+                    actuallyRevoked = false;
+                    result.addVerificationInfo("Certificate was revoked after signing, but signature has valid timestamp (CRL)");
+                } else if (revocationTime != null && effectiveSigningTime != null
+                        && revocationTime.before(effectiveSigningTime)) {
+                    status = "Revoked before signing (CRL)";
+                    actuallyRevoked = true;
+                    result.addVerificationError("Certificate was revoked BEFORE the document was signed (CRL)");
+                } else {
+                    status = "Revoked (CRL)";
+                    actuallyRevoked = true;
+                    result.addVerificationError("Certificate has been revoked (CRL)");
+                }
+            }
+
+            result.setRevocationStatus(status);
+            result.setCertificateRevoked(actuallyRevoked);
+            revocationCache.put(cacheKey, new RevocationCacheEntry(status, actuallyRevoked, revocationTime, "CRL"));
+            RevocationStatusCache.getInstance().put(cert, listed, revocationTime, crl.getNextUpdate(), "CRL");
+            log.info("CRL: " + status + " for cert [" + cert.getSerialNumber() + "]");
+            return true;
+        } catch (Exception e) {
+            log.warn("CRL check failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Applies a revocation status remembered by {@link RevocationStatusCache}, judging the
+     * revocation time against this signature's signing time like a live check would.
+     */
+    private void applyKnownRevocationStatus(RevocationStatusCache.Entry known, SignatureVerificationResult result,
+                                            Date signDate, String cacheKey) {
+        String source = known.getSource() + ", cached";
+        Date revocationTime = known.getRevocationTime();
+        String status;
+        boolean actuallyRevoked;
+
+        if (!known.isRevoked()) {
+            status = "Valid (" + source + ")";
+            actuallyRevoked = false;
+            result.addVerificationInfo("Revocation checked via " + known.getSource() + " (cached until " +
+                    formatDate(known.getExpiresAt()) + ")");
+        } else {
+            Date effectiveSigningTime = result.getTimestampDate() != null ? result.getTimestampDate() : signDate;
+            if (revocationTime != null && effectiveSigningTime != null && revocationTime.before(effectiveSigningTime)) {
+                status = "Revoked before signing (" + source + ")";
+                actuallyRevoked = true;
+                result.addVerificationError("Certificate was revoked BEFORE the document was signed (" + source + ")");
+            } else if (revocationTime != null && effectiveSigningTime != null && result.isTimestampValid()) {
+                status = "Valid (Revoked after signing, has timestamp)";
+                actuallyRevoked = false;
+                result.addVerificationInfo("Certificate was revoked after signing, but signature has valid timestamp (" + source + ")");
+            } else {
+                status = "Revoked (" + source + ")";
+                actuallyRevoked = true;
+                result.addVerificationError("Certificate has been revoked (" + source + ")");
+            }
+        }
+
+        result.setRevocationStatus(status);
+        result.setCertificateRevoked(actuallyRevoked);
+        revocationCache.put(cacheKey, new RevocationCacheEntry(status, actuallyRevoked, revocationTime, source));
+        log.info("Revocation status from persistent cache: " + status);
+    }
+
     private String extractOCSPUrl(X509Certificate cert) {
         try {
             byte[] aiaExt = cert.getExtensionValue("1.3.6.1.5.5.7.1.1");
@@ -1779,18 +2378,160 @@ public class SignatureVerificationService {
         return null;
     }
 
-    private OCSPCheckResult performLiveOCSPCheck(X509Certificate cert, X509Certificate issuerCert, String ocspUrl)
+    /**
+     * Returns the OCSP lookup of {@code cert}, starting it on the revocation executor if the document's
+     * lookups did not already include it.
+     */
+    private CompletableFuture<OCSPCheckResult> lookupOcsp(X509Certificate cert, X509Certificate issuerCert,
+                                                         String ocspUrl, String cacheKey) {
+        return pendingOcsp.computeIfAbsent(cacheKey, key -> CompletableFuture.supplyAsync(
+                () -> queryOcsp(ocspUrl, Collections.singletonList(new X509Certificate[]{cert, issuerCert})).get(0),
+                REVOCATION_EXECUTOR));
+    }
+
+    /**
+     * Returns the CRL of {@code crlUrl} from the {@link CrlCache}, refreshing it on the revocation
+     * executor if the document's lookups did not already start it.
+     */
+    private CompletableFuture<CrlIndex> lookupCrl(String crlUrl, X509Certificate issuerCert) {
+        return pendingCrl.computeIfAbsent(crlUrl, url -> CompletableFuture.supplyAsync(
+                () -> CrlCache.getInstance().getIndex(url, issuerCert.getPublicKey()), REVOCATION_EXECUTOR));
+    }
+
+    /**
+     * Starts the OCSP lookups and CRL refreshes of all signer certificates of the document at once,
+     * so they run while the signatures are hashed and verified instead of one after another.
+     * <p>
+     * CRLs of the distribution points are refreshed alongside, since they are the fallback when a
+     * responder fails and the only source for certificates without an OCSP URL.
+     * <p>
+     * Certificates are taken from the signature containers without hashing the signed content and
+     * grouped by responder URL; each responder is asked once with a multi-certificate request, and
+     * responders are queried concurrently. {@link #checkRevocationStatus} picks up the answers.
+     * Certificates with embedded revocation data or a remembered status are left out, and certificates
+     * a responder did not answer (some only answer the first request) are asked for individually.
+     */
+    private void startRevocationLookups(AcroFields acroFields, List<String> signatureNames) {
+        Map<String, Map<String, X509Certificate[]>> byResponder = new LinkedHashMap<>();
+        for (String name : signatureNames) {
+            try {
+                com.itextpdf.text.pdf.PdfDictionary dictionary = acroFields.getSignatureDictionary(name);
+                com.itextpdf.text.pdf.PdfName subFilter = dictionary.getAsName(com.itextpdf.text.pdf.PdfName.SUBFILTER);
+                com.itextpdf.text.pdf.PdfString contents = dictionary.getAsString(com.itextpdf.text.pdf.PdfName.CONTENTS);
+                if (contents == null
+                        || com.itextpdf.text.pdf.PdfName.ADBE_X509_RSA_SHA1.equals(subFilter)
+                        || com.itextpdf.text.pdf.PdfName.ETSI_RFC3161.equals(subFilter)) {
+                    continue;
+                }
+
+                PdfPKCS7 container = new PdfPKCS7(contents.getOriginalBytes(), subFilter, null);
+                if (container.getOcsp() != null || (container.getCRLs() != null && !container.getCRLs().isEmpty())) {
+                    continue;
+                }
+                X509Certificate cert = container.getSigningCertificate();
+                if (cert == null || RevocationStatusCache.getInstance().get(cert) != null) {
+                    continue;
+                }
+                String ocspUrl = extractOCSPUrl(cert);
+                X509Certificate issuerCert = findIssuerCertificate(cert, container.getCertificates());
+                if (issuerCert == null) {
+                    continue;
+                }
+                String crlUrl = CertificateUtil.getCRLURL(cert);
+                if (crlUrl != null) {
+                    lookupCrl(crlUrl, issuerCert);
+                }
+                if (ocspUrl == null || ocspUrl.isEmpty()) {
+                    continue;
+                }
+
+                String cacheKey = cert.getSerialNumber().toString() + ":" + cert.getIssuerDN().toString();
+                byResponder.computeIfAbsent(ocspUrl, url -> new LinkedHashMap<>())
+                        .putIfAbsent(cacheKey, new X509Certificate[]{cert, issuerCert});
+            } catch (Exception e) {
+                log.debug("OCSP: Skipping early lookup for " + name + ": " + e.getMessage());
+            }
+        }
+
+        for (Map.Entry<String, Map<String, X509Certificate[]>> responder : byResponder.entrySet()) {
+            String ocspUrl = responder.getKey();
+            List<String> keys = new ArrayList<>(responder.getValue().keySet());
+            List<X509Certificate[]> certificates = new ArrayList<>(responder.getValue().values());
+            if (keys.size() > 1) {
+                log.info("OCSP: Sending batched request for " + keys.size() + " certificates to " + ocspUrl);
+            }
+
+            CompletableFuture<List<OCSPCheckResult>> request =
+                    CompletableFuture.supplyAsync(() -> queryOcsp(ocspUrl, certificates), REVOCATION_EXECUTOR);
+            for (int i = 0; i < keys.size(); i++) {
+                int index = i;
+                X509Certificate[] pair = certificates.get(i);
+                pendingOcsp.put(keys.get(i), request.thenCompose(answers -> answers.get(index) != null
+                        ? CompletableFuture.completedFuture(answers.get(index))
+                        : CompletableFuture.supplyAsync(
+                        () -> queryOcsp(ocspUrl, Collections.singletonList(pair)).get(0), REVOCATION_EXECUTOR)));
+            }
+        }
+    }
+
+    /**
+     * Sends an OCSP request and remembers definitive, authenticated answers in the {@link RevocationStatusCache},
+     * including those arriving after the verifier stopped waiting. Network failures are not retried
+     * here: the responder's {@link HostCircuitBreaker} circuit decides when it is tried again.
+     *
+     * @return the answer for each certificate, in request order; null where the responder gave none
+     * @throws CompletionException wrapping the {@link SignatureVerificationException} of the request
+     */
+    private List<OCSPCheckResult> queryOcsp(String ocspUrl, List<X509Certificate[]> certificates) {
+        try {
+            log.info("OCSP: Contacting server " + ocspUrl + " for " + certificates.size() + " certificate(s)...");
+            List<OCSPCheckResult> answers = sendOcspRequest(ocspUrl, certificates);
+            for (int i = 0; i < answers.size(); i++) {
+                OCSPCheckResult answer = answers.get(i);
+                if (answer != null && answer.definitive) {
+                    RevocationStatusCache.getInstance().put(certificates.get(i)[0], answer.isRevoked,
+                            answer.revocationTime, answer.nextUpdate, "OCSP");
+                }
+            }
+            return answers;
+        } catch (SignatureVerificationException e) {
+            log.warn("OCSP: Request to " + ocspUrl + " failed - " + e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Sends one OCSP request for several certificates.
+     *
+     * @param ocspUrl      responder URL
+     * @param certificates pairs of {certificate, issuer certificate}
+     * @return the answer for each certificate, in request order; null where the responder gave none,
+     * or gave one that is not signed by the issuer (or its delegated responder) or is not current
+     */
+    private List<OCSPCheckResult> sendOcspRequest(String ocspUrl, List<X509Certificate[]> certificates)
             throws SignatureVerificationException {
+        List<OCSPCheckResult> results = new ArrayList<>(Collections.nCopies(certificates.size(), (OCSPCheckResult) null));
+        HostCircuitBreaker breaker = HostCircuitBreaker.getInstance();
+        if (!breaker.allowRequest(ocspUrl)) {
+            throw new SignatureVerificationException(
+                    SignatureVerificationException.ErrorType.OCSP_NETWORK_ERROR,
+                    "OCSP responder at " + ocspUrl + " is unreachable; next attempt in "
+                            + breaker.getRetryAfterMillis(ocspUrl) / 1000 + "s");
+        }
+        boolean answered = false;
         try {
             // Use BouncyCastle 1.48 OCSP API (org.bouncycastle.ocsp)
-            org.bouncycastle.ocsp.CertificateID certId = new org.bouncycastle.ocsp.CertificateID(
-                    org.bouncycastle.ocsp.CertificateID.HASH_SHA1,
-                    issuerCert,
-                    cert.getSerialNumber()
-            );
-
+            List<org.bouncycastle.ocsp.CertificateID> certIds = new ArrayList<>(certificates.size());
             org.bouncycastle.ocsp.OCSPReqGenerator reqGen = new org.bouncycastle.ocsp.OCSPReqGenerator();
-            reqGen.addRequest(certId);
+            for (X509Certificate[] pair : certificates) {
+                org.bouncycastle.ocsp.CertificateID certId = new org.bouncycastle.ocsp.CertificateID(
+                        org.bouncycastle.ocsp.CertificateID.HASH_SHA1,
+                        pair[1],
+                        pair[0].getSerialNumber()
+                );
+                certIds.add(certId);
+                reqGen.addRequest(certId);
+            }
             org.bouncycastle.ocsp.OCSPReq req = reqGen.generate();
 
             java.net.URL url = new java.net.URL(ocspUrl);
@@ -1808,6 +2549,8 @@ public class SignatureVerificationService {
             out.close();
 
             int responseCode = conn.getResponseCode();
+            answered = true;
+            breaker.recordSuccess(ocspUrl);
             if (responseCode != 200) {
                 log.warn("OCSP responder returned code: " + responseCode);
                 throw new SignatureVerificationException(
@@ -1821,43 +2564,55 @@ public class SignatureVerificationService {
 
             if (ocspResp.getStatus() != org.bouncycastle.ocsp.OCSPRespStatus.SUCCESSFUL) {
                 log.warn("OCSP response status: " + ocspResp.getStatus());
-                return new OCSPCheckResult(false, null);
+                return results;
             }
 
             org.bouncycastle.ocsp.BasicOCSPResp basicResp = (org.bouncycastle.ocsp.BasicOCSPResp) ocspResp.getResponseObject();
             org.bouncycastle.ocsp.SingleResp[] responses = basicResp.getResponses();
-
-            if (responses.length > 0) {
-                org.bouncycastle.ocsp.SingleResp singleResp = responses[0];
-                Object certStatus = singleResp.getCertStatus();
-
-                if (certStatus == null) {
-                    // null means GOOD (not revoked)
-                    log.info("OCSP: Certificate is GOOD (not revoked)");
-                    return new OCSPCheckResult(false, null);
-                } else if (certStatus instanceof org.bouncycastle.ocsp.RevokedStatus) {
-                    // CRITICAL FIX: Extract revocation time for comparison with signing time
-                    org.bouncycastle.ocsp.RevokedStatus revokedStatus = (org.bouncycastle.ocsp.RevokedStatus) certStatus;
-                    Date revocationTime = revokedStatus.getRevocationTime();
-
-                    log.warn("OCSP: Certificate is REVOKED at: " +
-                            (revocationTime != null ? DATE_FORMAT.format(revocationTime) : "unknown time"));
-
-                    return new OCSPCheckResult(true, revocationTime);
-                } else if (certStatus instanceof org.bouncycastle.ocsp.UnknownStatus) {
-                    log.warn("OCSP: Certificate status is UNKNOWN");
-                    return new OCSPCheckResult(false, null);
+            Map<X509Certificate, Boolean> trustedFor = new HashMap<>();
+
+            for (int i = 0; i < certIds.size(); i++) {
+                org.bouncycastle.ocsp.SingleResp singleResp = findSingleResponse(responses, certIds.get(i));
+                if (singleResp == null && certIds.size() == 1 && responses.length == 1
+                        && responses[0].getCertID().getSerialNumber().equals(certIds.get(0).getSerialNumber())) {
+                    // A single request accepts the only answer for the same serial number even if the
+                    // responder hashes the issuer differently (e.g. with another algorithm)
+                    singleResp = responses[0];
+                }
+                if (singleResp == null) {
+                    continue;
+                }
+                X509Certificate issuer = certificates.get(i)[1];
+                Boolean trusted = trustedFor.get(issuer);
+                if (trusted == null) {
+                    trusted = isSignedByIssuerOrDelegate(basicResp, issuer);
+                    trustedFor.put(issuer, trusted);
+                }
+                if (!trusted) {
+                    log.warn("OCSP: Ignoring response from " + ocspUrl
+                            + " - not signed by the issuer or a responder it authorized");
+                } else if (!isCurrent(singleResp)) {
+                    log.warn("OCSP: Ignoring response from " + ocspUrl + " - thisUpdate "
+                            + formatDate(singleResp.getThisUpdate()) + " is outside the accepted window");
+                } else {
+                    results.set(i, toOcspCheckResult(singleResp));
                 }
             }
 
         } catch (java.net.SocketTimeoutException e) {
             log.warn("OCSP: Timeout - " + e.getMessage());
+            if (!answered) {
+                breaker.recordFailure(ocspUrl);
+            }
             throw new SignatureVerificationException(
                     SignatureVerificationException.ErrorType.OCSP_TIMEOUT,
                     "OCSP responder at " + ocspUrl + " did not respond within 5 seconds",
                     e);
         } catch (java.io.IOException e) {
             log.warn("OCSP: Network error - " + e.getMessage());
+            if (!answered) {
+                breaker.recordFailure(ocspUrl);
+            }
             throw new SignatureVerificationException(
                     SignatureVerificationException.ErrorType.OCSP_NETWORK_ERROR,
                     e.getMessage(),
@@ -1873,6 +2628,99 @@ public class SignatureVerificationService {
                     e);
         }
 
+        return results;
+    }
+
+    /**
+     * Finds the answer for {@code certId}, comparing serial number and issuer hashes.
+     */
+    private static org.bouncycastle.ocsp.SingleResp findSingleResponse(
+            org.bouncycastle.ocsp.SingleResp[] responses, org.bouncycastle.ocsp.CertificateID certId) {
+        for (org.bouncycastle.ocsp.SingleResp response : responses) {
+            org.bouncycastle.ocsp.CertificateID answered = response.getCertID();
+            if (answered.getSerialNumber().equals(certId.getSerialNumber())
+                    && Arrays.equals(answered.getIssuerNameHash(), certId.getIssuerNameHash())
+                    && Arrays.equals(answered.getIssuerKeyHash(), certId.getIssuerKeyHash())) {
+                return response;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the responder signature (RFC 6960 section 4.2.2.2): the response must be signed either
+     * by the issuer itself or by a certificate, included in the response, that the issuer signed for
+     * OCSP signing and that is currently valid.
+     */
+    private static boolean isSignedByIssuerOrDelegate(org.bouncycastle.ocsp.BasicOCSPResp basicResp,
+                                                      X509Certificate issuer) {
+        try {
+            if (basicResp.verify(issuer.getPublicKey(), "BC")) {
+                return true;
+            }
+        } catch (Exception e) {
+            // Signed with another key - look for a delegated responder below
+        }
+        try {
+            for (X509Certificate responder : basicResp.getCerts("BC")) {
+                List<String> keyUsages = responder.getExtendedKeyUsage();
+                if (!responder.getIssuerX500Principal().equals(issuer.getSubjectX500Principal())
+                        || keyUsages == null || !keyUsages.contains(OCSP_SIGNING_EKU)) {
+                    continue;
+                }
+                try {
+                    responder.verify(issuer.getPublicKey());
+                    responder.checkValidity();
+                    if (basicResp.verify(responder.getPublicKey(), "BC")) {
+                        return true;
+                    }
+                } catch (Exception e) {
+                    log.debug("OCSP: Rejecting responder certificate " + responder.getSubjectX500Principal()
+                            + " - " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("OCSP: Unable to read responder certificates - " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Rejects answers produced in the future (beyond clock skew), past their nextUpdate, or, when the
+     * responder gives no nextUpdate, older than {@link #MAX_OCSP_RESPONSE_AGE_MS}.
+     */
+    private static boolean isCurrent(org.bouncycastle.ocsp.SingleResp singleResp) {
+        long now = System.currentTimeMillis();
+        Date thisUpdate = singleResp.getThisUpdate();
+        Date nextUpdate = singleResp.getNextUpdate();
+        if (thisUpdate == null || thisUpdate.getTime() > now + OCSP_CLOCK_SKEW_MS) {
+            return false;
+        }
+        if (nextUpdate != null) {
+            return nextUpdate.getTime() + OCSP_CLOCK_SKEW_MS > now;
+        }
+        return now - thisUpdate.getTime() <= MAX_OCSP_RESPONSE_AGE_MS;
+    }
+
+    private OCSPCheckResult toOcspCheckResult(org.bouncycastle.ocsp.SingleResp singleResp) {
+        Object certStatus = singleResp.getCertStatus();
+
+        if (certStatus == null) {
+            // null means GOOD (not revoked)
+            log.info("OCSP: Certificate is GOOD (not revoked)");
+            return new OCSPCheckResult(false, null, singleResp.getNextUpdate(), true);
+        } else if (certStatus instanceof org.bouncycastle.ocsp.RevokedStatus) {
+            // CRITICAL FIX: Extract revocation time for comparison with signing time
+            org.bouncycastle.ocsp.RevokedStatus revokedStatus = (org.bouncycastle.ocsp.RevokedStatus) certStatus;
+            Date revocationTime = revokedStatus.getRevocationTime();
+
+            log.warn("OCSP: Certificate is REVOKED at: " +
+                    (revocationTime != null ? formatDate(revocationTime) : "unknown time"));
+
+            return new OCSPCheckResult(true, revocationTime, singleResp.getNextUpdate(), true);
+        } else if (certStatus instanceof org.bouncycastle.ocsp.UnknownStatus) {
+            log.warn("OCSP: Certificate status is UNKNOWN");
+        }
         return new OCSPCheckResult(false, null);
     }
 
@@ -1904,7 +2752,7 @@ public class SignatureVerificationService {
             }
 
             Date timestampDate = tsCalendar.getTime();
-            log.info("Step 1: Timestamp found - Date: " + DATE_FORMAT.format(timestampDate));
+            log.info("Step 1: Timestamp found - Date: " + formatDate(timestampDate));
 
             // STEP 2: Validate timestamp date is reasonable
             Date now = new Date();
@@ -1933,14 +2781,14 @@ public class SignatureVerificationService {
 
                 if (timeDiff > oneDayMs) {
                     log.warn("Timestamp date differs significantly from signing date - " +
-                            "Signing: " + DATE_FORMAT.format(signDate) +
-                            ", Timestamp: " + DATE_FORMAT.format(timestampDate));
+                            "Signing: " + formatDate(signDate) +
+                            ", Timestamp: " + formatDate(timestampDate));
                     signatureResult.addVerificationWarning("Timestamp date differs from signing date by " +
                             (timeDiff / (60 * 60 * 1000)) + " hours");
                 }
             }
 
-            log.info("Step 2: Timestamp date validated - " + DATE_FORMAT.format(timestampDate));
+            log.info("Step 2: Timestamp date validated - " + formatDate(timestampDate));
 
             // STEP 3: Try to extract TSA information using BouncyCastle
             String tsaName = "Timestamp Authority";
@@ -2161,15 +3009,14 @@ public class SignatureVerificationService {
      * - Approval signatures: Valid even if not the last revision (multiple signatures expected)
      * - Certification signatures: Check if subsequent changes are allowed by certification level
      *
-     * @param acroFields     AcroFields from PDF
-     * @param signatureName  Name of the signature field
-     * @param revision       Signature's revision number
-     * @param totalRevisions Total number of revisions in PDF
-     * @param pkcs7          Signature PKCS7 data
+     * @param parsed the parsed signature
      * @return true if document integrity is intact, false if altered
      */
-    private boolean verifyDocumentIntegrity(AcroFields acroFields, String signatureName,
-                                            int revision, int totalRevisions, PdfPKCS7 pkcs7) {
+    private boolean verifyDocumentIntegrity(ParsedSignature parsed) {
+        String signatureName = parsed.name;
+        int revision = parsed.revision;
+        int totalRevisions = parsed.totalRevisions;
+        PdfPKCS7 pkcs7 = parsed.pkcs7;
         try {
             // STEP 1: Always verify cryptographic signature first
             // This checks if the signed content matches the signature
@@ -2182,7 +3029,7 @@ public class SignatureVerificationService {
             // STEP 2: Check document coverage based on revision
             if (revision == totalRevisions) {
                 // This is the last signature - must cover the whole document
-                boolean coversWhole = acroFields.signatureCoversWholeDocument(signatureName);
+                boolean coversWhole = parsed.coversWholeDocument;
                 log.info("Signature " + signatureName + " is the last revision - covers whole document: " + coversWhole);
 
                 if (!coversWhole) {
@@ -2195,11 +3042,11 @@ public class SignatureVerificationService {
             }
 
             // STEP 3: For non-last signatures, check signature type
-            boolean isCertified = isCertificationSignature(acroFields, signatureName);
+            boolean isCertified = parsed.certification;
 
             if (isCertified) {
                 // For certification signatures, check if subsequent changes violate certification level
-                int certLevel = getCertificationLevel(acroFields, signatureName);
+                int certLevel = parsed.certificationP;
                 log.info("Signature " + signatureName + " is a certification signature (level " + certLevel + ")");
 
                 // Signature is cryptographically valid (checked in STEP 1)
@@ -2214,7 +3061,7 @@ public class SignatureVerificationService {
                 // For approval signatures (NOT_CERTIFIED), multiple signatures are EXPECTED
                 // The signature is cryptographically valid (checked in STEP 1)
                 // Check if this signature covered the document at the time it was signed
-                boolean coveredAtSigningTime = acroFields.signatureCoversWholeDocument(signatureName);
+                boolean coveredAtSigningTime = parsed.coversWholeDocument;
                 log.info("Signature " + signatureName + " is an approval signature (revision " + revision + "/" + totalRevisions +
                         ") - cryptographically valid: true, covered document at signing time: " + coveredAtSigningTime);
 
@@ -2232,13 +3079,11 @@ public class SignatureVerificationService {
     /**
      * Checks if a signature is a certification signature (has DocMDP transform).
      *
-     * @param acroFields    AcroFields from PDF
-     * @param signatureName Name of the signature field
+     * @param sigDict Signature dictionary (may be null)
      * @return true if this is a certification signature, false otherwise
      */
-    private boolean isCertificationSignature(AcroFields acroFields, String signatureName) {
+    private static boolean isCertificationSignature(com.itextpdf.text.pdf.PdfDictionary sigDict) {
         try {
-            com.itextpdf.text.pdf.PdfDictionary sigDict = acroFields.getSignatureDictionary(signatureName);
             if (sigDict == null) {
                 return false;
             }
@@ -2261,13 +3106,11 @@ public class SignatureVerificationService {
     /**
      * Gets the certification level (P value) from a certification signature.
      *
-     * @param acroFields    AcroFields from PDF
-     * @param signatureName Name of the signature field
+     * @param sigDict Signature dictionary (may be null)
      * @return Certification level: 1 (no changes), 2 (form filling), 3 (form filling + annotations)
      */
-    private int getCertificationLevel(AcroFields acroFields, String signatureName) {
+    private static int getCertificationLevel(com.itextpdf.text.pdf.PdfDictionary sigDict) {
         try {
-            com.itextpdf.text.pdf.PdfDictionary sigDict = acroFields.getSignatureDictionary(signatureName);
             if (sigDict == null) {
                 return 0;
             }
@@ -2346,6 +3189,64 @@ public class SignatureVerificationService {
      */
     public interface VerificationProgressListener {
         void onProgress(String message);
+
+        /**
+         * Called as soon as one signature has been verified, possibly out of order. The certification
+         * rules of the whole document are applied afterwards, so the final results may still change.
+         *
+         * @param index  position of the signature in the returned list
+         * @param total  number of signatures in the document
+         * @param result a snapshot of the verified signature, not updated by the certification rules
+         */
+        default void onSignatureVerified(int index, int total, SignatureVerificationResult result) {
+        }
+
+        /**
+         * Called from a background thread when results that were taken from the result cache with
+         * expired revocation information have been verified again.
+         *
+         * @param results the fresh results of the whole document
+         */
+        default void onResultsRevalidated(List<SignatureVerificationResult> results) {
+        }
+    }
+
+    /**
+     * One signature parsed for verification: the CMS is decoded and the signed byte range hashed
+     * exactly once, and the dictionary lookups every verification step needs are done up front.
+     */
+    private static final class ParsedSignature {
+        final String name;
+        final com.itextpdf.text.pdf.PdfDictionary dictionary;
+        final PdfPKCS7 pkcs7;
+        final Exception parseError;
+        final int revision;
+        final int totalRevisions;
+        final boolean coversWholeDocument;
+        final boolean certification;
+        final int certificationP;
+
+        ParsedSignature(AcroFields acroFields, String name) {
+            this.name = name;
+            this.dictionary = acroFields.getSignatureDictionary(name);
+
+            PdfPKCS7 parsedPkcs7 = null;
+            Exception error = null;
+            try {
+                parsedPkcs7 = acroFields.verifySignature(name);
+            } catch (Exception e) {
+                log.debug("Could not parse signature " + name, e);
+                error = e;
+            }
+            this.pkcs7 = parsedPkcs7;
+            this.parseError = error;
+
+            this.revision = acroFields.getRevision(name);
+            this.totalRevisions = acroFields.getTotalRevisions();
+            this.coversWholeDocument = acroFields.signatureCoversWholeDocument(name);
+            this.certification = isCertificationSignature(dictionary);
+            this.certificationP = certification ? getCertificationLevel(dictionary) : 0;
+        }
     }
 
     /**
@@ -2371,7 +3272,9 @@ public class SignatureVerificationService {
     /**
      * Verification result for a single signature.
      */
-    public static class SignatureVerificationResult {
+    public static class SignatureVerificationResult implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+
         private final String fieldName;
         private final String signerName;
         private final Date signDate;
@@ -2680,6 +3583,43 @@ public class SignatureVerificationService {
             this.isInvisible = invisible;
         }
 
+        /**
+         * @return an independent copy, e.g. to hand to another thread while this result may still change
+         */
+        SignatureVerificationResult copy() {
+            SignatureVerificationResult copy = new SignatureVerificationResult(
+                    fieldName, signerName, signDate, reason, location, contactInfo);
+            copy.documentIntact = documentIntact;
+            copy.signatureValid = signatureValid;
+            copy.certificateValid = certificateValid;
+            copy.certificateTrusted = certificateTrusted;
+            copy.timestampValid = timestampValid;
+            copy.hasLTV = hasLTV;
+            copy.certificateRevoked = certificateRevoked;
+            copy.revocationStatus = revocationStatus;
+            copy.certificateSubject = certificateSubject;
+            copy.certificateIssuer = certificateIssuer;
+            copy.certificateValidFrom = certificateValidFrom;
+            copy.certificateValidTo = certificateValidTo;
+            copy.signatureAlgorithm = signatureAlgorithm;
+            copy.verificationErrors.addAll(verificationErrors);
+            copy.verificationWarnings.addAll(verificationWarnings);
+            copy.verificationInfo.addAll(verificationInfo);
+            copy.signerCertificate = signerCertificate;
+            copy.certificateChain = certificateChain != null ? new ArrayList<>(certificateChain) : null;
+            copy.timestampDate = timestampDate;
+            copy.timestampAuthority = timestampAuthority;
+            copy.revision = revision;
+            copy.totalRevisions = totalRevisions;
+            copy.coversWholeDocument = coversWholeDocument;
+            copy.pageNumber = pageNumber;
+            copy.position = position != null ? position.clone() : null;
+            copy.certificationLevel = certificationLevel;
+            copy.isCertificationSignature = isCertificationSignature;
+            copy.isInvisible = isInvisible;
+            return copy;
+        }
+
         /**
          * Returns overall verification status based on all checks.
          * Adobe Reader style: Signature is VALID if core checks pass, even if revocation cannot be verified.
@@ -2790,10 +3730,18 @@ public class SignatureVerificationService {
     private static class OCSPCheckResult {
         final boolean isRevoked;
         final Date revocationTime; // null if not revoked
+        final Date nextUpdate;     // null if the responder did not publish one
+        final boolean definitive;  // true for GOOD and REVOKED answers
 
         OCSPCheckResult(boolean isRevoked, Date revocationTime) {
+            this(isRevoked, revocationTime, null, false);
+        }
+
+        OCSPCheckResult(boolean isRevoked, Date revocationTime, Date nextUpdate, boolean definitive) {
             this.isRevoked = isRevoked;
             this.revocationTime = revocationTime;
+            this.nextUpdate = nextUpdate;
+            this.definitive = definitive;
         }
     }
 
@@ -33,6 +33,7 @@ public class TrustStoreManager {
     private Set<X509Certificate> embeddedCertificates;
     private Map<String, X509Certificate> manualCertificates; // alias -> certificate
     private boolean initialized = false;
+    private String version; // fingerprint of the current certificates, computed on demand
 
     private TrustStoreManager() {
         embeddedCertificates = new HashSet<>();
@@ -59,6 +60,7 @@ public class TrustStoreManager {
         }
 
         log.info("Initializing Trust Store Manager...");
+        version = null;
 
         // Load embedded certificates
         loadEmbeddedCertificates();
@@ -417,6 +419,7 @@ public class TrustStoreManager {
             }
         }
 
+        version = null;
         log.info("Successfully added " + certs.size() + " certificate(s) from " + certFile.getName());
     }
 
@@ -439,6 +442,7 @@ public class TrustStoreManager {
 
         // Remove from map
         manualCertificates.remove(alias);
+        version = null;
 
         log.info("Removed manual trust certificate: " + alias);
         return true;
@@ -596,6 +600,43 @@ public class TrustStoreManager {
         return manualCertificates.size();
     }
 
+    /**
+     * Returns a fingerprint of the trusted certificates: a SHA-256 digest over all embedded and manual
+     * certificates, independent of load order. It changes whenever a certificate is added or removed,
+     * so results that depend on the trust store can be keyed by it.
+     *
+     * @return the version as a hex string
+     */
+    public synchronized String getVersion() {
+        if (version == null) {
+            List<String> fingerprints = new ArrayList<>();
+            try {
+                java.security.MessageDigest sha256 = java.security.MessageDigest.getInstance("SHA-256");
+                List<X509Certificate> all = new ArrayList<>(embeddedCertificates);
+                all.addAll(manualCertificates.values());
+                for (X509Certificate cert : all) {
+                    fingerprints.add(toHex(sha256.digest(cert.getEncoded())));
+                }
+                Collections.sort(fingerprints);
+                for (String fingerprint : fingerprints) {
+                    sha256.update(fingerprint.getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+                }
+                version = toHex(sha256.digest());
+            } catch (java.security.GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to fingerprint trust store", e);
+            }
+        }
+        return version;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
     /**
      * Reloads all certificates.
      */
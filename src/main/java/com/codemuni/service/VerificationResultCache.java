@@ -0,0 +1,284 @@
+package com.codemuni.service;
+
+import com.codemuni.service.SignatureVerificationService.SignatureVerificationResult;
+import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of signature verification results.
+ * <p>
+ * A result is stored under the digest of the signed revision (the file bytes from the start of the
+ * document to the end of the signature's byte range, which include the signature itself) combined
+ * with the {@link TrustStoreManager#getVersion() trust-store version}, so it is only found again for
+ * exactly the same signed content checked against the same trust anchors. Every entry carries the
+ * time its revocation information expires; after that it is still returned, marked expired, so the
+ * caller can show it at once and revalidate in the background.
+ * <p>
+ * Entries live in {@code ~/.eMark/verification-cache}, one file per signature, at most
+ * {@link #MAX_ENTRIES} (least recently written are dropped first).
+ */
+public final class VerificationResultCache {
+
+    private static final Log log = LogFactory.getLog(VerificationResultCache.class);
+    private static final VerificationResultCache INSTANCE =
+            new VerificationResultCache(AppConstants.CONFIG_DIR_PATH.resolve("verification-cache"));
+
+    static final int MAX_ENTRIES = 1000;
+    // Recently used entries kept in memory in serialized form
+    private static final int MEMORY_ENTRIES = 100;
+    private static final int FORMAT_MAGIC = 0x56524331; // "VRC1"
+    private static final String FILE_SUFFIX = ".vrc";
+
+    // Everything a serialized SignatureVerificationResult may contain
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+            SignatureVerificationResult.class.getName(),
+            com.codemuni.model.CertificationLevel.class.getName(),
+            Enum.class.getName(),
+            java.util.ArrayList.class.getName(),
+            java.util.Date.class.getName(),
+            "java.security.cert.Certificate$CertificateRep",
+            "[B",
+            "[F"));
+
+    private final Path cacheDir;
+    private final Map<String, byte[]> memory = new LinkedHashMap<String, byte[]>(MEMORY_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+    private final AtomicInteger writesSinceTrim = new AtomicInteger();
+
+    VerificationResultCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public static VerificationResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Builds the cache key of a signature.
+     *
+     * @param revisionDigest digest of the signed revision
+     * @param trustVersion   the current trust-store version
+     */
+    public static String key(byte[] revisionDigest, String trustVersion) {
+        StringBuilder sb = new StringBuilder(revisionDigest.length * 2 + 17);
+        for (byte b : revisionDigest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.append('-').append(trustVersion, 0, Math.min(16, trustVersion.length())).toString();
+    }
+
+    /**
+     * Returns the remembered result for {@code key}. Every call returns a new copy, so callers may
+     * modify it.
+     *
+     * @return the entry (possibly expired), or null if there is none
+     */
+    public Entry get(String key) {
+        byte[] stored;
+        synchronized (memory) {
+            stored = memory.get(key);
+        }
+        if (stored == null) {
+            Path file = cacheDir.resolve(key + FILE_SUFFIX);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try {
+                stored = Files.readAllBytes(file);
+            } catch (IOException e) {
+                log.warn("Unable to read cached verification result: " + file, e);
+                return null;
+            }
+            synchronized (memory) {
+                memory.put(key, stored);
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(stored))) {
+            if (in.readInt() != FORMAT_MAGIC) {
+                return null;
+            }
+            long expiresAt = in.readLong();
+            SignatureVerificationResult result = (SignatureVerificationResult) new AllowListObjectInputStream(in).readObject();
+            return new Entry(result, expiresAt);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.debug("Ignoring unreadable cached verification result " + key, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Remembers {@code result}. The result is serialized immediately; later changes to it are not stored.
+     *
+     * @param expiresAt when the revocation information the result relies on expires (epoch millis)
+     */
+    public void put(String key, SignatureVerificationResult result, long expiresAt) {
+        byte[] stored;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                out.writeInt(FORMAT_MAGIC);
+                out.writeLong(expiresAt);
+                ObjectOutputStream objects = new ObjectOutputStream(out);
+                objects.writeObject(result);
+                objects.flush();
+            }
+            stored = buffer.toByteArray();
+        } catch (IOException e) {
+            log.warn("Unable to serialize verification result for " + result.getFieldName(), e);
+            return;
+        }
+
+        synchronized (memory) {
+            memory.put(key, stored);
+        }
+
+        Path temp = null;
+        try {
+            FileUtils.ensureDirectory(cacheDir.toFile());
+            temp = Files.createTempFile(cacheDir, ".result-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(stored);
+            }
+            FileUtils.moveAtomically(temp, cacheDir.resolve(key + FILE_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Unable to persist verification result for " + result.getFieldName(), e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        if (writesSinceTrim.incrementAndGet() >= MAX_ENTRIES / 10) {
+            writesSinceTrim.set(0);
+            trim();
+        }
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        for (Path file : listEntries()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Unable to delete cached verification result: " + file, e);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        try {
+            Files.deleteIfExists(cacheDir.resolve(key + FILE_SUFFIX));
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void trim() {
+        List<Path> files = listEntries();
+        if (files.size() <= MAX_ENTRIES) {
+            return;
+        }
+        files.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path file : files.subList(0, files.size() - MAX_ENTRIES)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(cacheDir)) {
+            return Collections.emptyList();
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to list verification cache: " + cacheDir, e);
+        }
+        return files;
+    }
+
+    /**
+     * A remembered verification result.
+     */
+    public static final class Entry {
+        private final SignatureVerificationResult result;
+        private final long expiresAt;
+
+        Entry(SignatureVerificationResult result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+
+        public SignatureVerificationResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return true if the revocation information behind the result has expired
+         */
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+    /**
+     * Refuses to instantiate anything but the classes of a verification result.
+     */
+    private static final class AllowListObjectInputStream extends ObjectInputStream {
+        AllowListObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!ALLOWED_CLASSES.contains(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "not allowed in verification cache");
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.codemuni.utils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 
 public class FileUtils {
 
+    private static final long COPY_CHUNK_SIZE = 1024 * 1024;
+
     /**
      * Ensures that a directory exists, creating it (and parent directories) if necessary.
      * @param path The directory path as a String
@@ -35,4 +45,93 @@ public class FileUtils {
         File file = new File(filePath);
         return file.exists() && file.isFile();
     }
+
+    /**
+     * Moves a file to its target location so that the target is replaced in a single step.
+     * When source and target are on different file stores, the file is first copied next to the
+     * target and then renamed, so a partially written target is never observable.
+     * @param source The file to move
+     * @param target The destination path
+     * @throws IOException if the file cannot be moved
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        moveDurably(source, target, false, null);
+    }
+
+    /**
+     * Moves a file into place like {@link #moveAtomically(Path, Path)}, optionally forcing the data to
+     * the storage device before the rename, and the target's directory after it, so the target is
+     * durable once this method returns.
+     * A copy between file stores is done in chunks through a {@link FileChannel} and reported to
+     * {@code progress} as the number of bytes written so far.
+     * @param source   The file to move
+     * @param target   The destination path
+     * @param fsync    Whether to force the written data and the rename to disk
+     * @param progress Receives the bytes copied so far, or null
+     * @throws IOException if the file cannot be moved
+     */
+    public static void moveDurably(Path source, Path target, boolean fsync, LongConsumer progress) throws IOException {
+        long size = Files.size(source);
+        if (fsync) {
+            force(source);
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (fsync) {
+                forceDirectory(target.toAbsolutePath().getParent());
+            }
+            if (progress != null) progress.accept(size);
+            return;
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different file store; stage a copy beside the target and rename it there
+        }
+
+        Path targetDir = target.toAbsolutePath().getParent();
+        Path staged = Files.createTempFile(targetDir, ".emark-", ".tmp");
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(staged, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, Math.min(COPY_CHUNK_SIZE, size - position), out);
+                    if (progress != null) progress.accept(position);
+                }
+                if (fsync) {
+                    out.force(true);
+                }
+            }
+            try {
+                Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+        if (fsync) {
+            forceDirectory(targetDir);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces a directory entry change (the rename) to disk. Not every platform can open a directory
+     * (Windows cannot), so failures are ignored there.
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory sync is not supported here; the data itself has been forced already
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package com.codemuni.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-host circuit breaker for the OCSP, CRL and TSA endpoints contacted while signing and verifying.
+ * <p>
+ * A connection failure (timeout, refused connection, unknown host) opens the circuit of the host: for
+ * the backoff period every request to it is rejected immediately instead of waiting out the network
+ * timeouts again. The backoff starts at {@link #BASE_BACKOFF_MS} and doubles with every consecutive
+ * failure up to {@link #MAX_BACKOFF_MS}. When it has elapsed a single trial request is let through;
+ * its success closes the circuit, its failure opens it again for the next, longer period.
+ * <p>
+ * Hosts are identified by host name and port, so all URLs of one responder share a circuit.
+ */
+public final class HostCircuitBreaker {
+
+    private static final Log log = LogFactory.getLog(HostCircuitBreaker.class);
+    private static final HostCircuitBreaker INSTANCE = new HostCircuitBreaker();
+
+    static final long BASE_BACKOFF_MS = 15_000L;
+    static final long MAX_BACKOFF_MS = 15 * 60 * 1000L;
+    // A trial request that never reports back must not keep the circuit half-open forever
+    private static final long TRIAL_TIMEOUT_MS = 60_000L;
+
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    HostCircuitBreaker() {
+    }
+
+    public static HostCircuitBreaker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Decides whether a request to the host of {@code url} may be sent now. Callers that get true
+     * must report the outcome with {@link #recordSuccess} or {@link #recordFailure}.
+     *
+     * @return false if the host recently failed and its backoff period has not elapsed
+     */
+    public boolean allowRequest(String url) {
+        HostState state = hosts.get(hostOf(url));
+        if (state == null) {
+            return true;
+        }
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            if (state.failures == 0 || now >= state.openUntil && now - state.trialStartedAt >= TRIAL_TIMEOUT_MS) {
+                if (state.failures > 0) {
+                    state.trialStartedAt = now;
+                    log.info("Trying unreachable host again: " + hostOf(url));
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return true if requests to the host of {@code url} are currently rejected
+     */
+    public boolean isOpen(String url) {
+        HostState state = hosts.get(hostOf(url));
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return state.failures > 0 && System.currentTimeMillis() < state.openUntil;
+        }
+    }
+
+    /**
+     * @return milliseconds until the host of {@code url} is tried again, or 0 if it is not blocked
+     */
+    public long getRetryAfterMillis(String url) {
+        HostState state = hosts.get(hostOf(url));
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.failures > 0 ? Math.max(0, state.openUntil - System.currentTimeMillis()) : 0;
+        }
+    }
+
+    /**
+     * Records that the host of {@code url} answered; an HTTP error status counts as an answer.
+     */
+    public void recordSuccess(String url) {
+        String host = hostOf(url);
+        HostState state = hosts.remove(host);
+        if (state != null && state.failures > 0) {
+            log.info("Host reachable again: " + host);
+        }
+    }
+
+    /**
+     * Records that the host of {@code url} could not be reached and opens its circuit.
+     */
+    public void recordFailure(String url) {
+        String host = hostOf(url);
+        HostState state = hosts.computeIfAbsent(host, k -> new HostState());
+        synchronized (state) {
+            state.failures++;
+            long backoff = BASE_BACKOFF_MS << Math.min(state.failures - 1, 16);
+            backoff = Math.min(backoff, MAX_BACKOFF_MS);
+            state.openUntil = System.currentTimeMillis() + backoff;
+            state.trialStartedAt = 0;
+            log.warn("Host unreachable: " + host + " - requests skipped for " + backoff / 1000
+                    + "s (failure " + state.failures + ")");
+        }
+    }
+
+    /**
+     * Forgets all failures, e.g. after the network configuration changed.
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private static String hostOf(String url) {
+        if (url == null) {
+            return "";
+        }
+        try {
+            URL parsed = new URL(url);
+            int port = parsed.getPort() != -1 ? parsed.getPort() : parsed.getDefaultPort();
+            return parsed.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+        } catch (MalformedURLException e) {
+            return url;
+        }
+    }
+
+    private static final class HostState {
+        int failures;
+        long openUntil;
+        long trialStartedAt;
+    }
+}
@@ -0,0 +1,62 @@
+package com.codemuni.utils;
+
+import com.itextpdf.text.io.RandomAccessSource;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Opens PDF documents for signing and verification.
+ * <p>
+ * Files are memory-mapped and read in partial mode: only the cross-reference table and trailer
+ * are parsed up front, and objects are loaded when they are first touched. Opening a large document
+ * to sign or verify one page therefore costs a few milliseconds and little heap, instead of pulling
+ * every object of the file into memory as {@code new PdfReader(path)} does.
+ */
+public final class PdfReaderFactory {
+
+    private PdfReaderFactory() {
+    }
+
+    /**
+     * Opens {@code file} in partial mode.
+     *
+     * @param file     the PDF document
+     * @param password the document password, or null/empty for none
+     * @return a reader that must be closed by the caller
+     * @throws IOException if the file cannot be read, is not a PDF or the password is wrong
+     */
+    public static PdfReader open(File file, String password) throws IOException {
+        byte[] passwordBytes = password == null || password.isEmpty() ? null : password.getBytes();
+        return open(file, passwordBytes);
+    }
+
+    /**
+     * Opens {@code file} in partial mode.
+     *
+     * @param file     the PDF document
+     * @param password the document password bytes, or null for none
+     * @return a reader that must be closed by the caller
+     * @throws IOException if the file cannot be read, is not a PDF or the password is wrong
+     */
+    public static PdfReader open(File file, byte[] password) throws IOException {
+        // Mapped when possible; falls back to plain random access if the file cannot be mapped
+        RandomAccessSource source = new RandomAccessSourceFactory()
+                .setForceRead(false)
+                .setUsePlainRandomAccess(false)
+                .createBestSource(file.getAbsolutePath());
+        try {
+            return new PdfReader(new RandomAccessFileOrArray(source), password, true);
+        } catch (IOException | RuntimeException e) {
+            // The partial-mode constructor leaves the source open when parsing fails
+            try {
+                source.close();
+            } catch (IOException ignore) {
+            }
+            throw e;
+        }
+    }
+}